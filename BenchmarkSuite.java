@@ -0,0 +1,244 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * A suite of micro-benchmarks for the hot paths of the simulation,
+ * to catch performance regressions. Each benchmark is run for every
+ * combination of field size and initial density, and reports its
+ * throughput together with the memory it allocates and the garbage
+ * collections it causes.
+ *
+ * Benchmarks follow the usual pattern: some warm-up iterations that
+ * are not measured, then measured iterations. Before every iteration
+ * the simulation is reset from the same seed, outside the measured
+ * time. Most benchmarks then repeat their operation for a fixed
+ * length of time. The population changes a great deal from step to
+ * step, so the step benchmark instead runs a fixed number of steps
+ * unmeasured and times a fixed number more: every version of the
+ * code then times the same steps of the same population, and the
+ * results can be compared.
+ *
+ * Run main with optional arguments: a comma-separated list of field
+ * sizes (each is used for both depth and width), then a
+ * comma-separated list of densities (factors applied to the creation
+ * probabilities, see Simulator.setDensity). The defaults are sizes
+ * 100, 500 and 1000 and densities 0.5 and 1.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class BenchmarkSuite
+{
+    // The number of unmeasured iterations of each benchmark.
+    private static final int WARMUP_ITERATIONS = 3;
+    // The number of measured iterations of each benchmark.
+    private static final int MEASURED_ITERATIONS = 5;
+    // The length of an iteration, in nanoseconds.
+    private static final long ITERATION_TIME = 200_000_000L;
+    // The number of steps run before the step benchmark is timed.
+    private static final int WARMUP_STEPS = 10;
+    // The number of steps timed in each iteration of the step benchmark.
+    private static final int TIMED_STEPS = 10;
+    // The number of cells probed by the neighbourhood benchmarks.
+    private static final int PROBES = 4096;
+
+    // The simulation being measured.
+    private Simulator simulator;
+    // The locations probed by the neighbourhood benchmarks.
+    private Location[] probes;
+    // The next entry of probes to use.
+    private int nextProbe;
+    // A value derived from each result, so that no work is optimised away.
+    private long sink;
+
+    /**
+     * Run the suite.
+     * @param args The field sizes, then the densities.
+     */
+    public static void main(String[] args)
+    {
+        int[] sizes = { 100, 500, 1000 };
+        double[] densities = { 0.5, 1.0 };
+        if(args.length > 0) {
+            String[] parts = args[0].split(",");
+            sizes = new int[parts.length];
+            for(int i = 0; i < parts.length; i++) {
+                sizes[i] = Integer.parseInt(parts[i]);
+            }
+        }
+        if(args.length > 1) {
+            String[] parts = args[1].split(",");
+            densities = new double[parts.length];
+            for(int i = 0; i < parts.length; i++) {
+                densities[i] = Double.parseDouble(parts[i]);
+            }
+        }
+        System.out.printf("%-40s %6s %7s %14s %12s %10s %4s%n",
+                          "benchmark", "size", "density", "ops/s",
+                          "bytes/op", "alloc MB/s", "gcs");
+        BenchmarkSuite suite = new BenchmarkSuite();
+        for(int size : sizes) {
+            for(double density : densities) {
+                suite.runAll(size, density);
+            }
+        }
+    }
+
+    /**
+     * Run every benchmark on one field size and density.
+     * @param size The depth and width of the field.
+     * @param density The factor applied to the creation probabilities.
+     */
+    public void runAll(int size, double density)
+    {
+        Randomizer.reset();
+        simulator = new Simulator(size, size, false);
+        simulator.setDensity(density);
+        Field field = simulator.getField();
+        // Made once, so that the benchmarks do not measure making them.
+        probes = new Location[PROBES];
+        for(int i = 0; i < PROBES; i++) {
+            probes[i] = field.locationOf(Randomizer.getRandom().nextInt(size * size));
+        }
+        FieldStats stats = simulator.getStats();
+        FieldSnapshot snapshot = new FieldSnapshot(size, size);
+
+        measure("Simulator.simulateOneStep", size, density,
+                this::resetAndWarmUp, () -> simulator.simulateOneStep(), TIMED_STEPS);
+        measure("Simulator.populate", size, density,
+                () -> simulator.reset());
+        measure("Field.adjacentLocations", size, density,
+                () -> sink += field.adjacentLocations(nextProbe()).size());
+        measure("Field.getFreeAdjacentLocations", size, density,
+                () -> sink += field.getFreeAdjacentLocations(nextProbe()).size());
+        measure("FieldStats.getPopulationDetails", size, density,
+                () -> sink += stats.getPopulationDetails(field).length());
+        measure("FieldSnapshot.capture", size, density,
+                () -> snapshot.capture(simulator.getStep(), field));
+    }
+
+    /**
+     * Run one benchmark, repeating its operation for a fixed time in
+     * each iteration, and print its results.
+     * @param name The name of the benchmark.
+     * @param size The depth and width of the field.
+     * @param density The factor applied to the creation probabilities.
+     * @param operation One operation of the benchmark.
+     */
+    private void measure(String name, int size, double density, Runnable operation)
+    {
+        measure(name, size, density, this::reset, operation, 0);
+    }
+
+    /**
+     * Run one benchmark and print its results.
+     * @param name The name of the benchmark.
+     * @param size The depth and width of the field.
+     * @param density The factor applied to the creation probabilities.
+     * @param setup Run before each iteration, outside the measured time.
+     * @param operation One operation of the benchmark.
+     * @param count The number of operations in each iteration, or 0
+     *              to repeat the operation for ITERATION_TIME.
+     */
+    private void measure(String name, int size, double density,
+                         Runnable setup, Runnable operation, int count)
+    {
+        for(int i = 0; i < WARMUP_ITERATIONS; i++) {
+            setup.run();
+            iterate(operation, count);
+        }
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long operations = 0;
+        long time = 0;
+        long allocated = 0;
+        long collections = 0;
+        for(int i = 0; i < MEASURED_ITERATIONS; i++) {
+            setup.run();
+            long gcBefore = collectionCount();
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            operations += iterate(operation, count);
+            time += System.nanoTime() - start;
+            allocated += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+            collections += collectionCount() - gcBefore;
+        }
+        System.out.printf("%-40s %6d %7.2f %14.1f %12.0f %10.1f %4d%n",
+                          name, size, density,
+                          operations * 1e9 / time,
+                          (double) allocated / operations,
+                          allocated * 1e3 / time,
+                          collections);
+    }
+
+    /**
+     * Run an operation for one iteration.
+     * @param operation The operation to run.
+     * @param count The number of times to run it, or 0 to run it
+     *              repeatedly for ITERATION_TIME.
+     * @return The number of times the operation was run.
+     */
+    private long iterate(Runnable operation, int count)
+    {
+        long operations = 0;
+        if(count > 0) {
+            while(operations < count) {
+                operation.run();
+                operations++;
+            }
+            return operations;
+        }
+        long end = System.nanoTime() + ITERATION_TIME;
+        do {
+            operation.run();
+            operations++;
+        } while(System.nanoTime() < end);
+        return operations;
+    }
+
+    /**
+     * Reset the simulation from the run's seed, so that every
+     * iteration starts from the same population.
+     */
+    private void reset()
+    {
+        Randomizer.reset();
+        simulator.reset();
+    }
+
+    /**
+     * Reset the simulation and run WARMUP_STEPS steps, so that the
+     * step benchmark always times the same steps.
+     */
+    private void resetAndWarmUp()
+    {
+        reset();
+        for(int step = 0; step < WARMUP_STEPS; step++) {
+            simulator.simulateOneStep();
+        }
+    }
+
+    /**
+     * @return The next location to probe.
+     */
+    private Location nextProbe()
+    {
+        nextProbe = (nextProbe + 1) % PROBES;
+        return probes[nextProbe];
+    }
+
+    /**
+     * @return The number of garbage collections so far, over all collectors.
+     */
+    static long collectionCount()
+    {
+        long count = 0;
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for(GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * One bit for every cell of a field, packed into longs, used by the
+ * field to record which cells hold a member of one species. Its
+ * purpose is to answer "is any of the cells around this one set?"
+ * with a few word operations rather than by looking at each cell in
+ * turn.
+ *
+ * Each row of the field is stored in a whole number of words, with
+ * a clear bit before the first column and after the last, so that
+ * the three bits around any column of a row can be read without
+ * checking for the edges.
+ *
+ * Bits are set and cleared atomically, since cells that share a
+ * word may be changed at the same time by different threads. The
+ * words are kept in a GridStorage, so they may be mapped.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class Bitboard
+{
+    // The depth and width of the field.
+    private final int depth, width;
+    // The number of bits given to each row: a multiple of 64 with
+    // room for the clear bit at each end.
+    private final int rowBits;
+    // The bits, row after row.
+    private final GridStorage.Longs words;
+
+    /**
+     * Create a bitboard for a field of the given size, on the heap,
+     * with every bit clear.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     */
+    public Bitboard(int depth, int width)
+    {
+        this(depth, width, GridStorage.HEAP, "bitboard");
+    }
+
+    /**
+     * Create a bitboard for a field of the given size, in the given
+     * storage, with every bit clear.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param storage Where to keep the bits.
+     * @param name The name of the bits' file, if the storage is mapped.
+     * @throws IllegalArgumentException If the bits cannot be indexed
+     *                                  by an int.
+     */
+    public Bitboard(int depth, int width, GridStorage storage, String name)
+    {
+        this.depth = depth;
+        this.width = width;
+        rowBits = ((width + 2 + Long.SIZE - 1) / Long.SIZE) * Long.SIZE;
+        long bits = (long) depth * rowBits;
+        if(bits > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A " + depth + "x" + width
+                                               + " field is too large for a bitboard");
+        }
+        words = storage.longs(name, (int) (bits / Long.SIZE));
+    }
+
+    /**
+     * Set the bit of a cell.
+     * @param cell The cell index, row * width + col.
+     */
+    public void set(int cell)
+    {
+        int bit = bitOf(cell);
+        words.setBits(bit >>> 6, 1L << bit);
+    }
+
+    /**
+     * Clear the bit of a cell.
+     * @param cell The cell index, row * width + col.
+     */
+    public void clear(int cell)
+    {
+        int bit = bitOf(cell);
+        words.clearBits(bit >>> 6, 1L << bit);
+    }
+
+    /**
+     * Clear every bit.
+     */
+    public void clear()
+    {
+        words.clear();
+    }
+
+    /**
+     * Tell whether the bit of a cell is set.
+     * @param cell The cell index, row * width + col.
+     * @return true if the bit is set.
+     */
+    public boolean get(int cell)
+    {
+        int bit = bitOf(cell);
+        return (words.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    /**
+     * Return the bits of the cells around the given cell, one bit
+     * per direction in the order of Field's directions. The bits of
+     * directions that leave the field are clear.
+     * @param cell The cell index, row * width + col.
+     * @return The bits of the adjacent cells.
+     */
+    public int neighbours(int cell)
+    {
+        int row = cell / width;
+        int col = cell % width;
+        // Three bits per row, with the cell itself in the middle.
+        int window = 0;
+        if(row > 0) {
+            window = threeBits(row - 1, col);
+        }
+        window |= threeBits(row, col) << 3;
+        if(row < depth - 1) {
+            window |= threeBits(row + 1, col) << 6;
+        }
+        // Drop the middle bit, which is the cell itself.
+        return (window & 0xF) | ((window >>> 1) & 0xF0);
+    }
+
+    /**
+     * Return the bits of the column before, at and after the given
+     * column of a row.
+     * @param row The row.
+     * @param col The column.
+     * @return The three bits, the one before col lowest.
+     */
+    private int threeBits(int row, int col)
+    {
+        // The bit before col, allowing for the clear bit at the start.
+        int bit = row * rowBits + col;
+        int shift = bit & 63;
+        long bits = words.get(bit >>> 6) >>> shift;
+        if(shift > Long.SIZE - 3) {
+            bits |= words.get((bit >>> 6) + 1) << (Long.SIZE - shift);
+        }
+        return (int) bits & 7;
+    }
+
+    /**
+     * Return the position of a cell's bit.
+     * @param cell The cell index, row * width + col.
+     * @return The bit index.
+     */
+    private int bitOf(int cell)
+    {
+        int row = cell / width;
+        return row * rowBits + cell - row * width + 1;
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary checkpoint file, written or read as a stream of
+ * primitive values through a FileChannel and a large direct buffer.
+ * The simulator decides what goes in it; see
+ * Simulator.saveCheckpoint. The file starts with MAGIC and VERSION,
+ * which open checks, and values are stored big-endian.
+ *
+ * A checkpoint is either being written or being read, never both,
+ * and must be closed so that the last of what was written reaches
+ * the file.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class Checkpoint implements Closeable
+{
+    // The first four bytes of every checkpoint: "SWCP".
+    public static final int MAGIC = 0x53574350;
+    // The version of the format written by this class.
+    public static final int VERSION = 2;
+    // The size of the buffer between the values and the channel.
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // The file.
+    private final FileChannel channel;
+    // Values on their way to or from the channel. When reading, the
+    // buffer holds the bytes read but not yet taken.
+    private final ByteBuffer buffer;
+    // Whether the checkpoint is being written.
+    private final boolean writing;
+
+    /**
+     * Wrap an open channel.
+     * @param channel The file.
+     * @param writing Whether the checkpoint is being written.
+     */
+    private Checkpoint(FileChannel channel, boolean writing)
+    {
+        this.channel = channel;
+        this.writing = writing;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        if(!writing) {
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Create a checkpoint file to write, replacing any file already
+     * there, and write its header.
+     * @param file The file.
+     * @return The checkpoint.
+     * @throws IOException If the file cannot be created.
+     */
+    public static Checkpoint create(Path file) throws IOException
+    {
+        Checkpoint checkpoint = new Checkpoint(
+            FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                             StandardOpenOption.TRUNCATE_EXISTING),
+            true);
+        checkpoint.putInt(MAGIC);
+        checkpoint.putInt(VERSION);
+        return checkpoint;
+    }
+
+    /**
+     * Open a checkpoint file to read, and check its header.
+     * @param file The file.
+     * @return The checkpoint.
+     * @throws IOException If the file cannot be read or is not a
+     *                     checkpoint of this version.
+     */
+    public static Checkpoint open(Path file) throws IOException
+    {
+        Checkpoint checkpoint = new Checkpoint(FileChannel.open(file, StandardOpenOption.READ), false);
+        try {
+            if(checkpoint.getInt() != MAGIC) {
+                throw new IOException(file + " is not a checkpoint");
+            }
+            int version = checkpoint.getInt();
+            if(version != VERSION) {
+                throw new IOException(file + " is a checkpoint of version " + version
+                                      + "; only version " + VERSION + " can be read");
+            }
+        }
+        catch(IOException e) {
+            checkpoint.close();
+            throw e;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @param value A byte to write.
+     * @throws IOException If it cannot be written.
+     */
+    public void putByte(byte value) throws IOException
+    {
+        makeRoom(Byte.BYTES);
+        buffer.put(value);
+    }
+
+    /**
+     * @param value An int to write.
+     * @throws IOException If it cannot be written.
+     */
+    public void putInt(int value) throws IOException
+    {
+        makeRoom(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * @param value A long to write.
+     * @throws IOException If it cannot be written.
+     */
+    public void putLong(long value) throws IOException
+    {
+        makeRoom(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Write a string, as its length in bytes followed by its UTF-8.
+     * @param value The string, of less than BUFFER_SIZE bytes.
+     * @throws IOException If it cannot be written.
+     */
+    public void putString(String value) throws IOException
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        makeRoom(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * @return The next byte.
+     * @throws IOException If it cannot be read.
+     */
+    public byte getByte() throws IOException
+    {
+        fill(Byte.BYTES);
+        return buffer.get();
+    }
+
+    /**
+     * @return The next int.
+     * @throws IOException If it cannot be read.
+     */
+    public int getInt() throws IOException
+    {
+        fill(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    /**
+     * @return The next long.
+     * @throws IOException If it cannot be read.
+     */
+    public long getLong() throws IOException
+    {
+        fill(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    /**
+     * @return The next string, written by putString.
+     * @throws IOException If it cannot be read.
+     */
+    public String getString() throws IOException
+    {
+        int length = getInt();
+        if(length < 0 || length > BUFFER_SIZE) {
+            throw new IOException("Bad string length in checkpoint: " + length);
+        }
+        fill(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write out what is left in the buffer, if writing, and close
+     * the file.
+     * @throws IOException If the file cannot be written or closed.
+     */
+    public void close() throws IOException
+    {
+        try {
+            if(writing) {
+                drain();
+            }
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Make sure there is room in the buffer for the given number of
+     * bytes, writing out what is there if there is not.
+     * @param bytes The number of bytes.
+     * @throws IOException If the buffer cannot be written out.
+     */
+    private void makeRoom(int bytes) throws IOException
+    {
+        if(buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    /**
+     * Write everything in the buffer to the channel.
+     * @throws IOException If it cannot be written.
+     */
+    private void drain() throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Make sure the buffer holds at least the given number of bytes,
+     * reading more from the channel if it does not.
+     * @param bytes The number of bytes.
+     * @throws IOException If they cannot be read, or the file ends first.
+     */
+    private void fill(int bytes) throws IOException
+    {
+        if(buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while(buffer.position() < bytes) {
+            if(channel.read(buffer) < 0) {
+                throw new EOFException("The checkpoint ends too soon");
+            }
+        }
+        buffer.flip();
+    }
+}
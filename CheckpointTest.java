@@ -0,0 +1,186 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Checks that a simulation restored from a checkpoint carries on
+ * exactly as the one that saved it. For each way of keeping creature
+ * state and scheduling events, on the calling thread and with the
+ * ParallelStepEngine, a run saves a checkpoint part way and carries
+ * on; a new simulator restores the checkpoint and must match the
+ * species, age and food level in every cell, both straight away and
+ * after carrying on for the same number of steps. Runs with and
+ * without an EntityStore follow the same rules, so they must also
+ * agree on every cell, and so must runs on the calling thread and
+ * with the engine. A file that is not a checkpoint must be refused.
+ *
+ * Run main with optional arguments: the size of the field (used for
+ * both depth and width) and the number of steps before and after the
+ * checkpoint. The defaults are 120 and 20. The check fails with an
+ * AssertionError.
+ *
+ * @author agent
+ * @version 2026.10.17
+ */
+public class CheckpointTest
+{
+    // The modes checked: whether to use an EntityStore, drawn
+    // breeding steps and rooted plants, in that order. The first two
+    // differ only in the store.
+    private static final boolean[][] MODES = {
+        { false, false, false },
+        { true, false, false },
+        { false, true, false },
+        { false, false, true },
+        { true, true, true },
+    };
+
+    /**
+     * Run the check.
+     * @param args The field size, then the number of steps.
+     * @throws IOException If a checkpoint cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        Path file = Files.createTempFile("checkpoint", ".bin");
+        try {
+            int[] sequential = null;
+            for(int threads = 0; threads <= 2; threads += 2) {
+                int[][] saved = new int[MODES.length][];
+                for(int mode = 0; mode < MODES.length; mode++) {
+                    saved[mode] = check(file, size, steps, MODES[mode], threads);
+                }
+                expectSame(saved[0], saved[1], "Without and with a store, threads " + threads);
+                if(sequential == null) {
+                    sequential = saved[0];
+                }
+                expectSame(sequential, saved[0], "Without and with threads");
+            }
+            checkRefused(file);
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("CheckpointTest passed");
+    }
+
+    /**
+     * Save a checkpoint part way through a run, restore it in a new
+     * simulator and check that the two stay the same.
+     * @param file The file to save the checkpoint in.
+     * @param size The depth and width of the field.
+     * @param steps The number of steps before and after the checkpoint.
+     * @param mode Whether to use an EntityStore, drawn breeding steps
+     *             and rooted plants.
+     * @param threads The number of threads, or 0 to run sequentially.
+     * @return The state of every cell when the checkpoint was saved.
+     * @throws IOException If the checkpoint cannot be written or read.
+     */
+    private static int[] check(Path file, int size, int steps, boolean[] mode, int threads)
+        throws IOException
+    {
+        String name = "store " + mode[0] + ", draws " + mode[1] + ", rooted " + mode[2]
+                      + ", threads " + threads;
+        Randomizer.reset();
+        Simulator original = new Simulator(size, size, false);
+        original.setEntityStore(mode[0]);
+        original.setEventDriven(mode[1]);
+        original.setRootedPlants(mode[2]);
+        original.reset();
+        setThreads(original, threads);
+        for(int step = 0; step < steps; step++) {
+            original.simulateOneStep();
+        }
+        original.saveCheckpoint(file);
+        int[] saved = stateOf(original);
+
+        Simulator restored = new Simulator(size, size, false);
+        setThreads(restored, threads);
+        restored.restoreCheckpoint(file);
+        expectSame(saved, stateOf(restored), name + ", on restoring");
+        for(int step = 0; step < steps; step++) {
+            original.simulateOneStep();
+            restored.simulateOneStep();
+        }
+        expectSame(stateOf(original), stateOf(restored), name + ", " + steps + " steps later");
+        if(original.getStep() != restored.getStep()) {
+            throw new AssertionError(name + ": the restored run is at step " + restored.getStep()
+                                     + ", not " + original.getStep());
+        }
+        System.out.printf("%s: %d organisms the same%n", name, restored.getOrganismCount());
+        original.setParallelism(0);
+        restored.setParallelism(0);
+        return saved;
+    }
+
+    /**
+     * Check that a file that is not a checkpoint is refused.
+     * @param file A file to write to.
+     * @throws IOException If the file cannot be written.
+     */
+    private static void checkRefused(Path file) throws IOException
+    {
+        Files.write(file, new byte[64]);
+        try {
+            new Simulator(10, 10, false).restoreCheckpoint(file);
+        }
+        catch(IOException e) {
+            return;
+        }
+        throw new AssertionError("A file of zeros was restored as a checkpoint");
+    }
+
+    /**
+     * @param simulator A simulator.
+     * @param threads The number of threads, or 0 to run sequentially.
+     */
+    private static void setThreads(Simulator simulator, int threads)
+    {
+        if(threads > 0) {
+            simulator.setParallelism(threads);
+        }
+    }
+
+    /**
+     * Record the species, age and food level of the occupant of
+     * every cell.
+     * @param simulator The simulator.
+     * @return Three ints for each cell.
+     */
+    private static int[] stateOf(Simulator simulator)
+    {
+        Field field = simulator.getField();
+        int cells = field.getDepth() * field.getWidth();
+        int[] state = new int[3 * cells];
+        for(int cell = 0; cell < cells; cell++) {
+            state[3 * cell] = field.getSpeciesAt(cell);
+            Object occupant = field.getObjectAt(cell);
+            if(occupant instanceof Creature) {
+                Creature creature = (Creature) occupant;
+                state[3 * cell + 1] = creature.getAge();
+                state[3 * cell + 2] = creature.getFoodLevel();
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Fail the check if two states differ, naming the first cell
+     * that does.
+     * @param expected The state of one run.
+     * @param actual The state of the run that should match it.
+     * @param when Which runs, and when the states were taken.
+     */
+    private static void expectSame(int[] expected, int[] actual, String when)
+    {
+        int index = Arrays.mismatch(expected, actual);
+        if(index >= 0) {
+            String[] parts = { "species", "age", "food level" };
+            throw new AssertionError(when + ": cell " + index / 3 + " has " + parts[index % 3]
+                                     + " " + actual[index] + ", not " + expected[index]);
+        }
+    }
+}
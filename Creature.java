@@ -0,0 +1,467 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A member of one of the species in the species table. Creatures
+ * age, move, breed, and die; those whose species eats other species
+ * also hunt, and die if they go too long without food.
+ *
+ * All species share this one class, and everything that differs
+ * between them is read from their Species.
+ *
+ * A creature does not count its age and hunger step by step. It
+ * records the step at which it was born, in effect, and the step at
+ * which it will starve, and is entered in its pool's DeathWheel under
+ * whichever of old age and hunger comes first. Its age and food level
+ * are worked out from the current step when they are needed, and
+ * eating puts off starving.
+ *
+ * If its pool has an EntityStore, the creature's age and food level
+ * live in a slot of the store instead, which ages it and makes it
+ * hungry in a pass over all creatures at the start of each step.
+ *
+ * If its pool is event driven, a creature does not roll for breeding
+ * on every step. It draws the step at which it will next breed in
+ * advance, so that breeding happens as often as the breeding
+ * probability would give if it rolled on every step.
+ *
+ * If its pool has an EventCalendar, a creature whose species does
+ * not hunt is rooted: it stays in its cell and does nothing until
+ * its next growth event, when it sends out young around it. It is
+ * entered in the calendar under the step of that event, drawn in
+ * the same way.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class Creature extends Organism
+{
+    // Individual characteristics (instance fields).
+    // The step at which the creature would have been born to have
+    // its age now.
+    private int birthStep;
+    // The step at which the creature will starve unless it eats,
+    // if its species eats at all.
+    private int hungerStep;
+    // The step at which the creature will die of age or hunger.
+    private int deathStep;
+    // The pool that the creature's young are taken from.
+    private final CreaturePool pool;
+    // The wheel that tells the time and delivers deaths.
+    private final DeathWheel wheel;
+    // The store holding the creature's state, or null if it is
+    // kept in the fields above.
+    private final EntityStore store;
+    // The creature's slot in the store, or NO_SLOT.
+    private int slot;
+    // The calendar of growth events, or null if the creature is not
+    // rooted.
+    private final EventCalendar calendar;
+    // Whether the creature draws its breeding steps in advance.
+    private final boolean eventDriven;
+    // The step of the creature's next breeding or growth event, if
+    // it draws them in advance.
+    private int nextEvent;
+
+    /**
+     * Create a creature. A creature can be created as a new born (age zero
+     * and not hungry) or with a random age and food level.
+     *
+     * @param species The creature's species.
+     * @param randomAge If true, the creature will have random age and hunger level.
+     * @param field The field currently occupied.
+     * @param location The location within the field.
+     * @param pool The pool for the creature's young.
+     */
+    public Creature(Species species, boolean randomAge, Field field, Location location,
+                    CreaturePool pool)
+    {
+        this(species, randomAge, field, field.cellOf(location), pool);
+    }
+
+    /**
+     * Create a creature. A creature can be created as a new born (age zero
+     * and not hungry) or with a random age and food level.
+     *
+     * @param species The creature's species.
+     * @param randomAge If true, the creature will have random age and hunger level.
+     * @param field The field currently occupied.
+     * @param cell The cell index within the field.
+     * @param pool The pool for the creature's young.
+     */
+    public Creature(Species species, boolean randomAge, Field field, int cell,
+                    CreaturePool pool)
+    {
+        this(species, field, cell, pool);
+        setAgeAndFood(randomAge);
+    }
+
+    /**
+     * Create a creature with the given state, as saved in a checkpoint.
+     *
+     * @param species The creature's species.
+     * @param field The field currently occupied.
+     * @param cell The cell index within the field.
+     * @param pool The pool for the creature's young.
+     * @param age The creature's age.
+     * @param foodLevel The creature's food level.
+     * @param nextEvent The step of its next growth event, if it is rooted.
+     */
+    Creature(Species species, Field field, int cell, CreaturePool pool,
+             int age, int foodLevel, int nextEvent)
+    {
+        this(species, field, cell, pool);
+        restoreState(age, foodLevel, nextEvent);
+    }
+
+    /**
+     * Create a creature in the given cell, with no age or food level.
+     * @param species The creature's species.
+     * @param field The field currently occupied.
+     * @param cell The cell index within the field.
+     * @param pool The pool for the creature's young.
+     */
+    private Creature(Species species, Field field, int cell, CreaturePool pool)
+    {
+        super(species, field, cell);
+        this.pool = pool;
+        wheel = pool.getWheel();
+        store = pool.getStore();
+        calendar = species.isPredator() ? null : pool.getCalendar();
+        eventDriven = pool.isEventDriven() || calendar != null;
+        slot = EntityStore.NO_SLOT;
+    }
+
+    /**
+     * Bring a dead creature back to life as a new one, as though
+     * it had just been created.
+     * @param randomAge If true, the creature will have random age and hunger level.
+     * @param field The field to occupy.
+     * @param cell The cell index within the field.
+     */
+    void revive(boolean randomAge, Field field, int cell)
+    {
+        revive(field, cell);
+        setAgeAndFood(randomAge);
+    }
+
+    /**
+     * Bring a dead creature back to life with the given state, as
+     * saved in a checkpoint.
+     * @param field The field to occupy.
+     * @param cell The cell index within the field.
+     * @param age The creature's age.
+     * @param foodLevel The creature's food level.
+     * @param nextEvent The step of its next growth event, if it is rooted.
+     */
+    void revive(Field field, int cell, int age, int foodLevel, int nextEvent)
+    {
+        revive(field, cell);
+        restoreState(age, foodLevel, nextEvent);
+    }
+
+    /**
+     * Give a new creature its starting age and food level.
+     * @param randomAge If true, the age and food level are random.
+     */
+    private void setAgeAndFood(boolean randomAge)
+    {
+        Species species = getSpecies();
+        int startAge;
+        int startFood = 0;
+        if(randomAge) {
+            Random rand = Randomizer.getRandom();
+            startAge = rand.nextInt(species.getMaxAge());
+            if(species.getFoodValue() > 0) {
+                startFood = rand.nextInt(species.getFoodValue());
+            }
+        }
+        else {
+            startAge = 0;
+            startFood = species.getFoodValue();
+        }
+        setState(startAge, startFood);
+        if(eventDriven) {
+            // The first event can be no earlier than the step at which
+            // the creature reaches breeding age.
+            int now = wheel.getStep();
+            int mature = Math.max(now, now - startAge + species.getBreedingAge() - 1);
+            drawNextEvent(mature);
+        }
+    }
+
+    /**
+     * Give the creature its state from a checkpoint.
+     * @param age The creature's age.
+     * @param foodLevel The creature's food level.
+     * @param event The step of its next breeding or growth event, if
+     *              it draws them in advance.
+     */
+    private void restoreState(int age, int foodLevel, int event)
+    {
+        setState(age, foodLevel);
+        nextEvent = event;
+        if(calendar != null && event > wheel.getStep()
+           && getSpecies().getBreedingProbability() > 0) {
+            calendar.schedule(this);
+        }
+    }
+
+    /**
+     * Record the creature's age and food level, in its store or as
+     * the steps of its birth and death.
+     * @param age The creature's age.
+     * @param foodLevel The creature's food level.
+     */
+    private void setState(int age, int foodLevel)
+    {
+        Species species = getSpecies();
+        if(store != null) {
+            slot = store.allocate(this, age, foodLevel);
+        }
+        else {
+            int now = wheel.getStep();
+            birthStep = now - age;
+            deathStep = birthStep + species.getMaxAge() + 1;
+            if(species.getFoodValue() > 0) {
+                // An empty stomach still lasts until the next step.
+                hungerStep = now + Math.max(foodLevel, 1);
+                deathStep = Math.min(deathStep, hungerStep);
+            }
+            wheel.schedule(this, deathStep);
+        }
+    }
+
+    /**
+     * @return The creature's age.
+     */
+    public int getAge()
+    {
+        return store != null ? store.getAge(slot) : wheel.getStep() - birthStep;
+    }
+
+    /**
+     * Return the creature's food level: the number of steps it can
+     * still go without eating, or zero if its species never eats.
+     * @return The food level.
+     */
+    public int getFoodLevel()
+    {
+        if(getSpecies().getFoodValue() == 0) {
+            return 0;
+        }
+        else if(store != null) {
+            return store.getFoodLevel(slot);
+        }
+        else {
+            return hungerStep - wheel.getStep();
+        }
+    }
+
+    /**
+     * Draw the step of the creature's next breeding or growth event
+     * after the given one, and enter it in the calendar if the
+     * creature is rooted.
+     * @param after The step after which to draw.
+     */
+    private void drawNextEvent(int after)
+    {
+        double probability = getSpecies().getBreedingProbability();
+        nextEvent = after + EventCalendar.geometric(Randomizer.getRandom(), probability);
+        if(calendar != null && probability > 0) {
+            calendar.schedule(this);
+        }
+    }
+
+    /**
+     * @return Whether the creature is rooted, acting only at the growth
+     *         events in its calendar rather than on every step.
+     */
+    public boolean isRooted()
+    {
+        return calendar != null;
+    }
+
+    /**
+     * Return the step of the creature's next breeding or growth event.
+     * Only meaningful if the creature draws them in advance.
+     * @return The step of the event.
+     */
+    int getNextEvent()
+    {
+        return nextEvent;
+    }
+
+    /**
+     * Return the step at which the creature will die of age or hunger,
+     * unless it eats first. Not used if the creature is in a store.
+     * @return The step of its death.
+     */
+    int getDeathStep()
+    {
+        return deathStep;
+    }
+
+    /**
+     * This is what the creature does most of the time: if it eats
+     * other species it hunts for them, otherwise it drifts. In the
+     * process, it might breed or die of overcrowding. Deaths from
+     * hunger and old age come from the wheel or store instead.
+     * A rooted creature only acts at a growth event, and grows.
+     * @param newCreatures A list to return newly born creatures.
+     */
+    public void act(List<Organism> newCreatures)
+    {
+        Species species = getSpecies();
+        if(isAlive() && calendar != null) {
+            grow(newCreatures);
+        }
+        else if(isAlive()) {
+            giveBirth(newCreatures);
+            // Move towards a source of food if found.
+            int newCell = species.isPredator() ? findFood() : NO_CELL;
+            if(newCell == NO_CELL) {
+                // No food found - try to move to a free location.
+                newCell = getField().freeAdjacentCell(getCell());
+            }
+            // See if it was possible to move.
+            if(newCell != NO_CELL) {
+                setCell(newCell);
+            }
+            else {
+                // Overcrowding.
+                setDead();
+            }
+        }
+    }
+
+    /**
+     * Send out young into free adjacent cells at a growth event, and
+     * schedule the next event.
+     * @param newCreatures A list to return newly born creatures.
+     */
+    private void grow(List<Organism> newCreatures)
+    {
+        Random rand = Randomizer.getRandom();
+        int births = rand.nextInt(getSpecies().getMaxLitterSize()) + 1;
+        Field field = getField();
+        if(field.hasFreeAdjacentCell(getCell())) {
+            NeighbourCursor free = field.freeAdjacentCells(getCell());
+            for(int b = 0; b < births && free.hasNext(); b++) {
+                Creature young = pool.obtain(getSpecies(), false, field, free.next());
+                newCreatures.add(young);
+            }
+        }
+        drawNextEvent(nextEvent);
+    }
+
+    /**
+     * Fill the creature up after a meal, which puts off its death
+     * from hunger.
+     */
+    private void eat()
+    {
+        Species species = getSpecies();
+        if(store != null) {
+            store.setFoodLevel(slot, species.getFoodValue());
+        }
+        else {
+            hungerStep = wheel.getStep() + species.getFoodValue();
+            int newDeath = Math.min(birthStep + species.getMaxAge() + 1, hungerStep);
+            if(newDeath != deathStep) {
+                deathStep = newDeath;
+                wheel.schedule(this, deathStep);
+            }
+        }
+    }
+
+    /**
+     * Look for prey adjacent to the current location.
+     * Only the first live prey is eaten.
+     * @return The cell where food was found, or NO_CELL if it wasn't.
+     */
+    private int findFood()
+    {
+        Species species = getSpecies();
+        long diet = species.getDiet();
+        Field field = getField();
+        if(!field.hasAdjacent(getCell(), diet)) {
+            return NO_CELL;
+        }
+        NeighbourCursor adjacent = field.adjacentCells(getCell());
+        while(adjacent.hasNext()) {
+            int where = adjacent.next();
+            // Only organisms are in a diet, and dead ones leave the field.
+            if(Species.isPrey(diet, field.getSpeciesAt(where))) {
+                Organism prey = (Organism) field.getObjectAt(where);
+                prey.setEaten();
+                eat();
+                return where;
+            }
+        }
+        return NO_CELL;
+    }
+
+    /**
+     * Check whether or not this creature is to give birth at this step.
+     * New births will be made into free adjacent locations.
+     * @param newCreatures A list to return newly born creatures.
+     */
+    private void giveBirth(List<Organism> newCreatures)
+    {
+        // New creatures are born into free adjacent locations.
+        int births = breed();
+        Field field = getField();
+        if(births > 0 && field.hasFreeAdjacentCell(getCell())) {
+            NeighbourCursor free = field.freeAdjacentCells(getCell());
+            for(int b = 0; b < births && free.hasNext(); b++) {
+                Creature young = pool.obtain(getSpecies(), false, field, free.next());
+                newCreatures.add(young);
+            }
+        }
+    }
+
+    /**
+     * Generate a number representing the number of births,
+     * if it can breed.
+     * @return The number of births (may be zero).
+     */
+    private int breed()
+    {
+        Species species = getSpecies();
+        Random rand = Randomizer.getRandom();
+        int births = 0;
+        if(eventDriven) {
+            int now = wheel.getStep();
+            if(now >= nextEvent && canBreed()) {
+                births = rand.nextInt(species.getMaxLitterSize()) + 1;
+                drawNextEvent(now);
+            }
+        }
+        else if(canBreed() && rand.nextDouble() <= species.getBreedingProbability()) {
+            births = rand.nextInt(species.getMaxLitterSize()) + 1;
+        }
+        return births;
+    }
+
+    /**
+     * A creature can breed if it has reached the breeding age.
+     */
+    private boolean canBreed()
+    {
+        return getAge() >= getSpecies().getBreedingAge();
+    }
+
+    /**
+     * Indicate that the creature is no longer alive. It is removed
+     * from the field, and gives up its slot in the store.
+     */
+    protected void setDead()
+    {
+        if(store != null && slot != EntityStore.NO_SLOT) {
+            store.release(slot);
+            slot = EntityStore.NO_SLOT;
+        }
+        super.setDead();
+    }
+}
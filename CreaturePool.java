@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dead creatures kept for reuse, one pool per species. When a
+ * creature is born, a dead creature of its species is brought back
+ * to life if one is available, so that once the population has
+ * settled the simulation no longer creates objects for births or
+ * leaves dead ones to the garbage collector.
+ *
+ * A creature must only be released to the pool once nothing else
+ * refers to it: the simulator releases the dead when it compacts its
+ * registry at the end of a step, if pooling is switched on with
+ * Simulator.setPooling. Creatures may be obtained by several
+ * threads at once, so each species' pool is locked separately.
+ *
+ * The pool also holds what its creatures share: the DeathWheel that
+ * tells them the step and delivers their deaths from age and hunger,
+ * the EntityStore they keep their state in, if there is one, and the
+ * EventCalendar of rooted creatures' growth, if there is one, and
+ * whether its creatures draw their breeding steps in advance.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class CreaturePool
+{
+    // The dead creatures of each species, indexed by species id.
+    private final List<List<Creature>> dead;
+    // The store that new creatures keep their state in, or null.
+    private final EntityStore store;
+    // The wheel that delivers the creatures' deaths.
+    private final DeathWheel wheel;
+    // The calendar of rooted creatures' growth events, or null.
+    private final EventCalendar calendar;
+    // Whether the creatures draw their breeding steps in advance.
+    private final boolean eventDriven;
+    // The number of creatures the pool has had to create.
+    private final LongAdder created;
+
+    /**
+     * Create an empty pool for every species, whose creatures keep
+     * their state in their own fields.
+     */
+    public CreaturePool()
+    {
+        this(null, null, false);
+    }
+
+    /**
+     * Create an empty pool for every species.
+     * @param store The store that the pool's creatures keep their
+     *              state in, or null to keep it in their fields.
+     * @param calendar The calendar of growth events for the pool's
+     *                 rooted creatures, or null if no creature is rooted.
+     * @param eventDriven Whether the pool's creatures draw their
+     *                    breeding steps in advance.
+     */
+    public CreaturePool(EntityStore store, EventCalendar calendar, boolean eventDriven)
+    {
+        this.store = store;
+        this.calendar = calendar;
+        this.eventDriven = eventDriven;
+        wheel = DeathWheel.forSpecies();
+        created = new LongAdder();
+        dead = new ArrayList<>(Species.count() + 1);
+        for(int id = 0; id <= Species.count(); id++) {
+            dead.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Return a live creature in the given cell, reusing a dead one
+     * of the species if possible.
+     * @param species The creature's species.
+     * @param randomAge If true, the creature will have random age and hunger level.
+     * @param field The field currently occupied.
+     * @param cell The cell index within the field.
+     * @return The creature.
+     */
+    public Creature obtain(Species species, boolean randomAge, Field field, int cell)
+    {
+        Creature creature = takeDead(species);
+        if(creature == null) {
+            created.increment();
+            return new Creature(species, randomAge, field, cell, this);
+        }
+        creature.revive(randomAge, field, cell);
+        return creature;
+    }
+
+    /**
+     * Return a live creature in the given cell with the given state,
+     * as saved in a checkpoint, reusing a dead one of the species if
+     * possible.
+     * @param species The creature's species.
+     * @param field The field currently occupied.
+     * @param cell The cell index within the field.
+     * @param age The creature's age.
+     * @param foodLevel The creature's food level.
+     * @param nextEvent The step of its next growth event, if it is rooted.
+     * @return The creature.
+     */
+    public Creature restore(Species species, Field field, int cell,
+                            int age, int foodLevel, int nextEvent)
+    {
+        Creature creature = takeDead(species);
+        if(creature == null) {
+            created.increment();
+            return new Creature(species, field, cell, this, age, foodLevel, nextEvent);
+        }
+        creature.revive(field, cell, age, foodLevel, nextEvent);
+        return creature;
+    }
+
+    /**
+     * Take a dead creature of a species out of the pool.
+     * @param species The species.
+     * @return The creature, or null if there is none.
+     */
+    private Creature takeDead(Species species)
+    {
+        List<Creature> pool = dead.get(species.getId());
+        synchronized(pool) {
+            return pool.isEmpty() ? null : pool.remove(pool.size() - 1);
+        }
+    }
+
+    /**
+     * Keep a dead organism for reuse, if it is a creature.
+     * @param organism A dead organism that nothing else refers to.
+     */
+    public void release(Organism organism)
+    {
+        if(organism instanceof Creature) {
+            List<Creature> pool = dead.get(organism.getSpecies().getId());
+            synchronized(pool) {
+                pool.add((Creature) organism);
+            }
+        }
+    }
+
+    /**
+     * @return The store that the pool's creatures keep their state
+     *         in, or null if they keep it in their fields.
+     */
+    public EntityStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * @return The wheel that tells the pool's creatures the time and
+     *         delivers their deaths from age and hunger.
+     */
+    public DeathWheel getWheel()
+    {
+        return wheel;
+    }
+
+    /**
+     * @return The calendar of the growth events of the pool's rooted
+     *         creatures, or null if none of them is rooted.
+     */
+    public EventCalendar getCalendar()
+    {
+        return calendar;
+    }
+
+    /**
+     * @return Whether the pool's creatures draw the steps at which
+     *         they breed in advance, rather than rolling on each step.
+     */
+    public boolean isEventDriven()
+    {
+        return eventDriven;
+    }
+
+    /**
+     * Return the number of creatures the pool has created because
+     * there was no dead one of the species to reuse.
+     * @return The number of creatures created.
+     */
+    public long getCreated()
+    {
+        return created.sum();
+    }
+
+    /**
+     * Return the number of dead creatures of a species in the pool.
+     * @param species The species.
+     * @return The number available for reuse.
+     */
+    public int getAvailable(Species species)
+    {
+        List<Creature> pool = dead.get(species.getId());
+        synchronized(pool) {
+            return pool.size();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Checks that, with pooling switched on, dead creatures find their
+ * way back to the CreaturePool, so that births reuse them rather than
+ * creating new objects. The same simulation is run on the calling
+ * thread and with the ParallelStepEngine, and each run may only
+ * create a small multiple of the creatures alive at its peak.
+ *
+ * Run main with optional arguments: the size of the field (used for
+ * both depth and width) and the number of steps. The defaults are
+ * 200 and 300. The check fails with an AssertionError.
+ *
+ * @author agent
+ * @version 2026.10.17
+ */
+public class CreaturePoolTest
+{
+    // How many creatures a run may create for each one alive at the
+    // peak, allowing for the deaths and births of a single step.
+    private static final int CREATED_PER_PEAK = 3;
+
+    /**
+     * Run the check.
+     * @param args The field size, then the number of steps.
+     */
+    public static void main(String[] args)
+    {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        long sequential = check(size, steps, 0);
+        long parallel = check(size, steps, 2);
+        // Both runs follow the same rules, so they should create
+        // creatures on the same scale.
+        if(parallel > 2 * sequential) {
+            throw new AssertionError("The parallel run created " + parallel
+                                     + " creatures, the sequential one " + sequential);
+        }
+        System.out.println("CreaturePoolTest passed");
+    }
+
+    /**
+     * Run a simulation and check how many creatures its pool created.
+     * @param size The depth and width of the field.
+     * @param steps The number of steps to run.
+     * @param threads The number of threads, or 0 to run sequentially.
+     * @return The number of creatures created.
+     */
+    private static long check(int size, int steps, int threads)
+    {
+        Randomizer.reset();
+        Simulator simulator = new Simulator(size, size, false);
+        simulator.setPooling(true);
+        if(threads > 0) {
+            simulator.setParallelism(threads);
+        }
+        int peak = simulator.getOrganismCount();
+        for(int step = 0; step < steps; step++) {
+            simulator.simulateOneStep();
+            peak = Math.max(peak, simulator.getOrganismCount());
+        }
+        long created = simulator.getPool().getCreated();
+        System.out.printf("threads %d: %d creatures created, peak population %d%n",
+                          threads, created, peak);
+        if(created > (long) CREATED_PER_PEAK * peak) {
+            throw new AssertionError(created + " creatures were created for a peak of " + peak);
+        }
+        simulator.setParallelism(0);
+        return created;
+    }
+}
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * A timing wheel of the steps at which creatures are due to die of
+ * old age or hunger. Creatures work out their age and hunger from
+ * the current step when they need them, so nothing has to be done
+ * for a creature on each step just to count. Instead, a creature is
+ * entered in the wheel under the step at which it will die, and the
+ * wheel kills it when that step begins.
+ *
+ * The wheel has a bucket for each of the next few steps, used in
+ * rotation, and must have more buckets than the furthest step ahead
+ * that anything is scheduled. A creature that eats is entered again
+ * under its new step, and its old entry is ignored when it comes up:
+ * a creature is only killed if the step of its entry is still the
+ * step of its death.
+ *
+ * Creatures may be scheduled by several threads at once, so each
+ * bucket is locked separately.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class DeathWheel
+{
+    // The creatures due to die in each bucket's step.
+    private final Bucket[] buckets;
+    // The number of buckets less one; the number is a power of two.
+    private final int mask;
+    // The current step. It only changes between steps, before any
+    // organism acts, and the engine's threads are started after it.
+    private int step;
+
+    /**
+     * Create an empty wheel that can schedule deaths up to the given
+     * number of steps ahead.
+     * @param horizon The furthest step ahead that will be scheduled.
+     */
+    public DeathWheel(int horizon)
+    {
+        int count = Integer.highestOneBit(Math.max(horizon, 1)) * 2;
+        buckets = new Bucket[count];
+        for(int bucket = 0; bucket < count; bucket++) {
+            buckets[bucket] = new Bucket();
+        }
+        mask = count - 1;
+    }
+
+    /**
+     * Create an empty wheel for the species in the species table:
+     * a creature can be scheduled no further ahead than its lifetime
+     * or the time it can go without food.
+     * @return The wheel.
+     */
+    public static DeathWheel forSpecies()
+    {
+        int horizon = 1;
+        for(Species species : Species.all()) {
+            horizon = Math.max(horizon, species.getMaxAge() + 1);
+            horizon = Math.max(horizon, species.getFoodValue());
+        }
+        return new DeathWheel(horizon);
+    }
+
+    /**
+     * @return The current step.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * Enter a creature under the step at which it is due to die.
+     * @param creature The creature.
+     * @param deathStep The step, which must be after the current one
+     *                  and within the horizon of the wheel.
+     */
+    public void schedule(Creature creature, int deathStep)
+    {
+        buckets[deathStep & mask].add(creature);
+    }
+
+    /**
+     * Move on to a new step, killing every creature due to die in it.
+     * @param newStep The step that is beginning.
+     */
+    public void advance(int newStep)
+    {
+        step = newStep;
+        Bucket bucket = buckets[newStep & mask];
+        for(int i = 0; i < bucket.size; i++) {
+            Creature creature = bucket.entries[i];
+            if(creature.isAlive() && creature.getDeathStep() == newStep) {
+                creature.setDead();
+            }
+        }
+        bucket.clear();
+    }
+
+    /**
+     * Remove every entry and go back to step zero.
+     */
+    public void clear()
+    {
+        for(Bucket bucket : buckets) {
+            bucket.clear();
+        }
+        step = 0;
+    }
+
+    /**
+     * The creatures entered under one step of the wheel.
+     */
+    private static class Bucket
+    {
+        // The initial capacity of a bucket.
+        private static final int INITIAL_CAPACITY = 16;
+
+        // The creatures, in the order they were entered.
+        private Creature[] entries = new Creature[INITIAL_CAPACITY];
+        // The number of entries in use.
+        private int size;
+
+        /**
+         * Enter a creature.
+         * @param creature The creature.
+         */
+        synchronized void add(Creature creature)
+        {
+            if(size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = creature;
+        }
+
+        /**
+         * Remove every entry.
+         */
+        synchronized void clear()
+        {
+            Arrays.fill(entries, 0, size, null);
+            size = 0;
+        }
+    }
+}
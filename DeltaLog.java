@@ -0,0 +1,398 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An append-only log of what happens to the cells of a field in
+ * each step: every birth, death, kill and move. The field reports
+ * each change as it happens, and at the end of the step the changes
+ * are written as one delta record, so the log grows with the number
+ * of changes rather than with the size of the field. Every so many
+ * steps, and whenever the field has been cleared, the species of
+ * every cell is written as well, as a keyframe. DeltaLogReader finds
+ * the state at any step by loading the nearest keyframe before it
+ * and applying the deltas that follow.
+ *
+ * The log starts with MAGIC, and then holds records, each a kind
+ * (DELTA or KEYFRAME, one byte), a step and the length in bytes of
+ * the rest of the record. A delta holds the number of event ints and
+ * the events; a keyframe holds the depth and width of the field and
+ * the species id of each cell. Events are packed into ints as the
+ * cell shifted left by two with the event type in the low bits. A
+ * birth is followed by the species id and a move by the cell moved
+ * to. The step and offset of every keyframe are also appended to an
+ * index file beside the log; see indexOf.
+ *
+ * Changes may be reported by several threads at once. Each thread
+ * keeps its own events, so reporting takes no lock, and they are put
+ * together when the step is written. Changes to the same cell from
+ * different threads must be separated by phaseCompleted, as the
+ * phases of a parallel step are: the events of each phase are
+ * written before those of the next. Within a phase the events of
+ * different threads are in different cells, so the order they are
+ * written in does not change the state the deltas lead to.
+ *
+ * An event has room for a cell index below MAX_CELLS, so a field
+ * with more cells cannot be logged.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class DeltaLog implements SimulatorObserver, Closeable
+{
+    // The first four bytes of a log: "SWDL".
+    public static final int MAGIC = 0x5357444C;
+    // The kinds of record.
+    public static final byte DELTA = 1;
+    public static final byte KEYFRAME = 2;
+    // The types of event, in the low two bits of an event's first int.
+    public static final int BIRTH = 0;
+    public static final int DEATH = 1;
+    public static final int KILL = 2;
+    public static final int MOVE = 3;
+    // The number of cells the events have room for.
+    public static final int MAX_CELLS = 1 << 29;
+    // The size of the buffer between the records and the channel.
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // The log file.
+    private final FileChannel channel;
+    // The index of keyframes.
+    private final FileChannel index;
+    // Records on their way to the log.
+    private final ByteBuffer buffer;
+    // The number of steps from one keyframe to the next.
+    private final int keyframeInterval;
+    // The events of the current step reported by each thread.
+    private final ThreadLocal<Events> events;
+    // The events of every thread that has reported any.
+    private final List<Events> allEvents;
+    // The phase of the current step that changes are reported in.
+    private int phase;
+    // Whether the next record must be a keyframe, because there is
+    // none yet or the field has been cleared.
+    private boolean keyframeNeeded;
+    // The number of bytes written to the log, including any still
+    // in the buffer.
+    private long length;
+    // The species of every cell, for writing a keyframe.
+    private byte[] cells;
+
+    /**
+     * Create a log, replacing any log already in the file.
+     * @param file The file to write the log to.
+     * @param keyframeInterval The number of steps from one keyframe
+     *                         to the next.
+     * @throws IOException If the log or its index cannot be created.
+     */
+    public DeltaLog(Path file, int keyframeInterval) throws IOException
+    {
+        if(keyframeInterval < 1) {
+            throw new IllegalArgumentException("The keyframe interval must be positive: "
+                                               + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        index = FileChannel.open(indexOf(file), StandardOpenOption.CREATE,
+                                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        allEvents = new ArrayList<>();
+        events = ThreadLocal.withInitial(this::newEvents);
+        keyframeNeeded = true;
+        buffer.putInt(MAGIC);
+        length = Integer.BYTES;
+    }
+
+    /**
+     * Return the index file that goes with a log.
+     * @param file The log file.
+     * @return The index file: the log's name with ".index" added.
+     */
+    public static Path indexOf(Path file)
+    {
+        return file.resolveSibling(file.getFileName() + ".index");
+    }
+
+    /**
+     * Record that an organism has been placed in an empty cell.
+     * @param cell The cell.
+     * @param species The organism's species id.
+     */
+    public void birth(int cell, byte species)
+    {
+        Events mine = events.get();
+        mine.add(phase, cell << 2 | BIRTH);
+        mine.add(phase, species);
+    }
+
+    /**
+     * Record that the occupant of a cell has died or been removed.
+     * @param cell The cell.
+     */
+    public void death(int cell)
+    {
+        events.get().add(phase, cell << 2 | DEATH);
+    }
+
+    /**
+     * Record that the occupant of a cell has been eaten.
+     * @param cell The cell.
+     */
+    public void kill(int cell)
+    {
+        events.get().add(phase, cell << 2 | KILL);
+    }
+
+    /**
+     * Record that an occupant has moved to an empty cell.
+     * @param from The cell moved from.
+     * @param to The cell moved to.
+     */
+    public void move(int from, int to)
+    {
+        Events mine = events.get();
+        mine.add(phase, from << 2 | MOVE);
+        mine.add(phase, to);
+    }
+
+    /**
+     * Record that a phase of the step has finished, so that the
+     * changes reported in it are written before any reported later,
+     * whichever threads report them. Must not be called while
+     * changes are being reported.
+     */
+    public synchronized void phaseCompleted()
+    {
+        phase++;
+    }
+
+    /**
+     * Record that every cell of the field has been emptied. The
+     * next record will be a keyframe. Must not be called while
+     * changes are being reported.
+     */
+    public synchronized void fieldCleared()
+    {
+        for(Events each : allEvents) {
+            each.clear();
+        }
+        keyframeNeeded = true;
+    }
+
+    /**
+     * Write the changes of a step, and a keyframe if one is due.
+     * @param step The step that has been completed.
+     * @param field The field.
+     * @throws UncheckedIOException If the log cannot be written.
+     */
+    public synchronized void stepCompleted(int step, Field field)
+    {
+        try {
+            if(!keyframeNeeded) {
+                writeEvents(step);
+            }
+            if(keyframeNeeded || step % keyframeInterval == 0) {
+                writeKeyframe(step, field);
+            }
+            drain();
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for(Events each : allEvents) {
+            each.clear();
+        }
+        phase = 0;
+        keyframeNeeded = false;
+    }
+
+    /**
+     * Write out anything not yet written, and close the log.
+     * @throws IOException If the log cannot be written or closed.
+     */
+    public synchronized void close() throws IOException
+    {
+        try {
+            drain();
+        }
+        finally {
+            channel.close();
+            index.close();
+        }
+    }
+
+    /**
+     * Write the events of a step as a delta, phase by phase.
+     * @param step The step.
+     * @throws IOException If it cannot be written.
+     */
+    private void writeEvents(int step) throws IOException
+    {
+        int eventCount = 0;
+        for(Events each : allEvents) {
+            eventCount += each.count;
+        }
+        putHeader(DELTA, step, Integer.BYTES * (1 + eventCount));
+        putInt(eventCount);
+        // Each thread's segments are in phase order, so one pass over
+        // the phases takes each segment in turn.
+        int[] next = new int[allEvents.size()];
+        for(int current = 0; current <= phase; current++) {
+            for(int i = 0; i < allEvents.size(); i++) {
+                Events each = allEvents.get(i);
+                while(next[i] < each.segments && each.phases[next[i]] == current) {
+                    int start = next[i] == 0 ? 0 : each.ends[next[i] - 1];
+                    for(int j = start; j < each.ends[next[i]]; j++) {
+                        putInt(each.values[j]);
+                    }
+                    next[i]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a keyframe of the field, and enter it in the index.
+     * @param step The step.
+     * @param field The field.
+     * @throws IOException If it cannot be written.
+     */
+    private void writeKeyframe(int step, Field field) throws IOException
+    {
+        int size = field.getDepth() * field.getWidth();
+        if(cells == null || cells.length != size) {
+            cells = new byte[size];
+        }
+        field.copySpecies(cells);
+
+        ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + Long.BYTES);
+        entry.putInt(step).putLong(length).flip();
+        while(entry.hasRemaining()) {
+            index.write(entry);
+        }
+
+        putHeader(KEYFRAME, step, 2 * Integer.BYTES + size);
+        putInt(field.getDepth());
+        putInt(field.getWidth());
+        for(int offset = 0; offset < size; ) {
+            if(!buffer.hasRemaining()) {
+                drain();
+            }
+            int chunk = Math.min(buffer.remaining(), size - offset);
+            buffer.put(cells, offset, chunk);
+            offset += chunk;
+        }
+        length += size;
+    }
+
+    /**
+     * Write the header of a record.
+     * @param kind DELTA or KEYFRAME.
+     * @param step The step.
+     * @param bytes The length of the rest of the record.
+     * @throws IOException If it cannot be written.
+     */
+    private void putHeader(byte kind, int step, int bytes) throws IOException
+    {
+        if(buffer.remaining() < 1) {
+            drain();
+        }
+        buffer.put(kind);
+        length++;
+        putInt(step);
+        putInt(bytes);
+    }
+
+    /**
+     * @param value An int to write.
+     * @throws IOException If it cannot be written.
+     */
+    private void putInt(int value) throws IOException
+    {
+        if(buffer.remaining() < Integer.BYTES) {
+            drain();
+        }
+        buffer.putInt(value);
+        length += Integer.BYTES;
+    }
+
+    /**
+     * Write everything in the buffer to the log.
+     * @throws IOException If it cannot be written.
+     */
+    private void drain() throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Create the events of a thread that is reporting its first.
+     * @return The thread's events.
+     */
+    private synchronized Events newEvents()
+    {
+        Events created = new Events();
+        allEvents.add(created);
+        return created;
+    }
+
+    /**
+     * The events of the current step reported by one thread, in
+     * segments of consecutive events reported in the same phase.
+     */
+    private static class Events
+    {
+        // The event ints.
+        private int[] values = new int[1024];
+        // The number of entries in values.
+        private int count;
+        // The phase of each segment.
+        private int[] phases = new int[8];
+        // The end of each segment in values.
+        private int[] ends = new int[8];
+        // The number of segments.
+        private int segments;
+
+        /**
+         * Add an int to the events.
+         * @param phase The phase it is reported in.
+         * @param value The int.
+         */
+        private void add(int phase, int value)
+        {
+            if(segments == 0 || phases[segments - 1] != phase) {
+                if(segments == phases.length) {
+                    phases = Arrays.copyOf(phases, segments * 2);
+                    ends = Arrays.copyOf(ends, segments * 2);
+                }
+                phases[segments++] = phase;
+            }
+            if(count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+            ends[segments - 1] = count;
+        }
+
+        /**
+         * Remove all the events.
+         */
+        private void clear()
+        {
+            count = 0;
+            segments = 0;
+        }
+    }
+}
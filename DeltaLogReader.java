@@ -0,0 +1,231 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a log written by DeltaLog. The state of the field at any
+ * logged step is rebuilt from the nearest keyframe at or before it
+ * and the deltas after the keyframe, so only a few records are read
+ * however long the run was.
+ *
+ * If the simulation was reset while it was logged, the log holds
+ * more than one run, and the latest keyframe at or before a step is
+ * the one used.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class DeltaLogReader implements Closeable
+{
+    // The length of the header of each record: kind, step and length.
+    private static final int HEADER_BYTES = 1 + 2 * Integer.BYTES;
+
+    // The log file.
+    private final FileChannel channel;
+    // The step of each keyframe, in the order they were written.
+    private final int[] keyframeSteps;
+    // The offset in the log of each keyframe.
+    private final long[] keyframeOffsets;
+    // The header of the record last read.
+    private final ByteBuffer header;
+    // The events of the last delta read by readEvents.
+    private int[] events;
+
+    /**
+     * Open a log and its index.
+     * @param file The log file.
+     * @throws IOException If the log or its index cannot be read.
+     */
+    public DeltaLogReader(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        header = ByteBuffer.allocate(HEADER_BYTES);
+        events = new int[0];
+        try(FileChannel index = FileChannel.open(DeltaLog.indexOf(file), StandardOpenOption.READ)) {
+            int count = (int) (index.size() / (Integer.BYTES + Long.BYTES));
+            ByteBuffer entries = ByteBuffer.allocate(count * (Integer.BYTES + Long.BYTES));
+            readFully(index, entries, 0);
+            keyframeSteps = new int[count];
+            keyframeOffsets = new long[count];
+            for(int i = 0; i < count; i++) {
+                keyframeSteps[i] = entries.getInt();
+                keyframeOffsets[i] = entries.getLong();
+            }
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            readFully(channel, magic, 0);
+            if(magic.getInt() != DeltaLog.MAGIC) {
+                throw new IOException(file + " is not a delta log");
+            }
+        }
+        catch(IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Return the species id of every cell at the end of a step.
+     * @param step The step.
+     * @return The species ids, indexed by row * width + col.
+     * @throws IOException If the log cannot be read, or does not
+     *                     reach the step.
+     */
+    public byte[] seek(int step) throws IOException
+    {
+        int keyframe = findKeyframe(step);
+        long offset = keyframeOffsets[keyframe];
+        readHeader(offset);
+        ByteBuffer size = ByteBuffer.allocate(2 * Integer.BYTES);
+        readFully(channel, size, offset + HEADER_BYTES);
+        int cellCount = size.getInt() * size.getInt();
+        ByteBuffer cells = ByteBuffer.allocate(cellCount);
+        readFully(channel, cells, offset + HEADER_BYTES + size.capacity());
+        byte[] grid = cells.array();
+
+        int at = keyframeSteps[keyframe];
+        offset += HEADER_BYTES + header.getInt(1 + Integer.BYTES);
+        while(at < step) {
+            readHeader(offset);
+            byte kind = header.get(0);
+            int recordStep = header.getInt(1);
+            int bytes = header.getInt(1 + Integer.BYTES);
+            if(kind == DeltaLog.DELTA && recordStep > at) {
+                int count = readEvents(offset + HEADER_BYTES, bytes);
+                apply(events, count, grid);
+                at = recordStep;
+            }
+            offset += HEADER_BYTES + bytes;
+        }
+        return grid;
+    }
+
+    /**
+     * Return the events of one step, as packed by DeltaLog.
+     * @param step The step.
+     * @return The event ints.
+     * @throws IOException If the log cannot be read, or has no delta
+     *                     for the step.
+     */
+    public int[] getEvents(int step) throws IOException
+    {
+        // A delta comes before any keyframe of the same step.
+        long offset = keyframeOffsets[findKeyframe(step - 1)];
+        while(true) {
+            readHeader(offset);
+            int bytes = header.getInt(1 + Integer.BYTES);
+            if(header.get(0) == DeltaLog.DELTA && header.getInt(1) == step) {
+                int count = readEvents(offset + HEADER_BYTES, bytes);
+                int[] copy = new int[count];
+                System.arraycopy(events, 0, copy, 0, count);
+                return copy;
+            }
+            offset += HEADER_BYTES + bytes;
+        }
+    }
+
+    /**
+     * Apply the events of a delta to the species ids of the cells.
+     * @param events The events, as packed by DeltaLog.
+     * @param count The number of event ints.
+     * @param grid The species ids, indexed by row * width + col.
+     */
+    public static void apply(int[] events, int count, byte[] grid)
+    {
+        int i = 0;
+        while(i < count) {
+            int event = events[i++];
+            int cell = event >>> 2;
+            switch(event & 3) {
+                case DeltaLog.BIRTH:
+                    grid[cell] = (byte) events[i++];
+                    break;
+                case DeltaLog.MOVE:
+                    grid[events[i++]] = grid[cell];
+                    grid[cell] = Field.EMPTY;
+                    break;
+                default:
+                    // A death or a kill.
+                    grid[cell] = Field.EMPTY;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Close the log.
+     * @throws IOException If it cannot be closed.
+     */
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Find the latest keyframe at or before a step.
+     * @param step The step.
+     * @return The keyframe's index.
+     * @throws IOException If there is none.
+     */
+    private int findKeyframe(int step) throws IOException
+    {
+        for(int i = keyframeSteps.length - 1; i >= 0; i--) {
+            if(keyframeSteps[i] <= step) {
+                return i;
+            }
+        }
+        throw new IOException("The log has no keyframe at or before step " + step);
+    }
+
+    /**
+     * Read the header of the record at the given offset.
+     * @param offset The offset in the log.
+     * @throws IOException If it cannot be read.
+     */
+    private void readHeader(long offset) throws IOException
+    {
+        header.clear();
+        readFully(channel, header, offset);
+    }
+
+    /**
+     * Read the events of a delta into the events array.
+     * @param offset The offset of the delta after its header.
+     * @param bytes The length of the delta after its header.
+     * @return The number of event ints.
+     * @throws IOException If they cannot be read.
+     */
+    private int readEvents(long offset, int bytes) throws IOException
+    {
+        ByteBuffer delta = ByteBuffer.allocate(bytes);
+        readFully(channel, delta, offset);
+        int count = delta.getInt();
+        if(events.length < count) {
+            events = new int[count];
+        }
+        delta.asIntBuffer().get(events, 0, count);
+        return count;
+    }
+
+    /**
+     * Fill a buffer from a channel, starting at the given offset, and
+     * flip it ready to be read.
+     * @param from The channel.
+     * @param into The buffer.
+     * @param offset The offset in the channel.
+     * @throws IOException If the channel ends before the buffer is full.
+     */
+    private static void readFully(FileChannel from, ByteBuffer into, long offset) throws IOException
+    {
+        while(into.hasRemaining()) {
+            int read = from.read(into, offset + into.position());
+            if(read < 0) {
+                throw new EOFException("The log ends too soon");
+            }
+        }
+        into.flip();
+    }
+}
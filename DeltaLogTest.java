@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checks that a DeltaLog lets DeltaLogReader rebuild the field at
+ * every logged step. A live run, on the calling thread or with the
+ * ParallelStepEngine, keeps a copy of the species of every cell at
+ * the end of each step; the log is then read back and seek must give
+ * the same cells for each step, whether it lands on a keyframe or
+ * between two. The events of each step, applied to the cells of the
+ * step before, must give the cells of the step. One run is reset part
+ * way, so that the log holds two runs and seek must find the later.
+ *
+ * Run main with optional arguments: the size of the field (used for
+ * both depth and width) and the number of steps logged. The defaults
+ * are 120 and 45. The check fails with an AssertionError.
+ *
+ * @author agent
+ * @version 2026.10.17
+ */
+public class DeltaLogTest
+{
+    // The number of steps from one keyframe to the next.
+    private static final int KEYFRAME_INTERVAL = 10;
+    // The number of steps run before the log is attached.
+    private static final int STEPS_BEFORE_LOG = 3;
+
+    /**
+     * Run the check.
+     * @param args The field size, then the number of steps.
+     * @throws IOException If the log cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 45;
+        Path file = Files.createTempFile("deltas", ".log");
+        try {
+            check(file, size, steps, 0, false);
+            check(file, size, steps, 2, false);
+            check(file, size, steps, 2, true);
+        }
+        finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(DeltaLog.indexOf(file));
+        }
+        System.out.println("DeltaLogTest passed");
+    }
+
+    /**
+     * Log a run and check every logged step against the live field.
+     * @param file The file to write the log to.
+     * @param size The depth and width of the field.
+     * @param steps The number of steps to log.
+     * @param threads The number of threads, or 0 to run sequentially.
+     * @param reset Whether to reset the simulation part way, after
+     *              which only the steps of the new run are checked.
+     * @throws IOException If the log cannot be written or read.
+     */
+    private static void check(Path file, int size, int steps, int threads, boolean reset)
+        throws IOException
+    {
+        String name = "threads " + threads + (reset ? ", reset" : "");
+        Randomizer.reset();
+        Simulator simulator = new Simulator(size, size, false);
+        if(threads > 0) {
+            simulator.setParallelism(threads);
+        }
+        for(int step = 0; step < STEPS_BEFORE_LOG; step++) {
+            simulator.simulateOneStep();
+        }
+        Map<Integer, byte[]> live = new HashMap<>();
+        try(DeltaLog log = new DeltaLog(file, KEYFRAME_INTERVAL)) {
+            simulator.setDeltaLog(log);
+            if(reset) {
+                for(int step = 0; step < steps / 2; step++) {
+                    simulator.simulateOneStep();
+                }
+                simulator.reset();
+            }
+            live.put(simulator.getStep(), cellsOf(simulator));
+            for(int step = 0; step < steps; step++) {
+                simulator.simulateOneStep();
+                live.put(simulator.getStep(), cellsOf(simulator));
+            }
+            simulator.setDeltaLog(null);
+        }
+        simulator.setParallelism(0);
+
+        try(DeltaLogReader reader = new DeltaLogReader(file)) {
+            for(Map.Entry<Integer, byte[]> entry : live.entrySet()) {
+                int step = entry.getKey();
+                expectSame(entry.getValue(), reader.seek(step), name + ", seek to step " + step);
+                byte[] before = live.get(step - 1);
+                if(before != null) {
+                    int[] events = reader.getEvents(step);
+                    byte[] applied = before.clone();
+                    DeltaLogReader.apply(events, events.length, applied);
+                    expectSame(entry.getValue(), applied, name + ", events of step " + step);
+                }
+            }
+        }
+        System.out.printf("%s: %d steps rebuilt, log of %d bytes%n", name, live.size(), Files.size(file));
+    }
+
+    /**
+     * @param simulator A simulator.
+     * @return The species id of every cell of its field.
+     */
+    private static byte[] cellsOf(Simulator simulator)
+    {
+        Field field = simulator.getField();
+        byte[] cells = new byte[field.getDepth() * field.getWidth()];
+        field.copySpecies(cells);
+        return cells;
+    }
+
+    /**
+     * Fail the check if two sets of cells differ, naming the first
+     * cell that does.
+     * @param expected The cells of the live field.
+     * @param actual The cells rebuilt from the log.
+     * @param when Which run and step the cells are from.
+     */
+    private static void expectSame(byte[] expected, byte[] actual, String when)
+    {
+        int cell = Arrays.mismatch(expected, actual);
+        if(cell >= 0) {
+            throw new AssertionError(when + ": cell " + cell + " holds species "
+                                     + (cell < actual.length ? actual[cell] : "none")
+                                     + ", not " + (cell < expected.length ? expected[cell] : "none"));
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * The state of the creatures in a field, kept in parallel arrays of
+ * primitives rather than in the fields of each Creature: one slot
+ * per creature, holding its species id, age and food level.
+ * A Creature that uses a store keeps only its slot, and reads and
+ * writes its state through the store.
+ *
+ * Keeping the state together lets ageing, hunger and the deaths they
+ * cause be handled by advance, a single pass over the arrays at the
+ * start of each step, instead of by each creature in turn.
+ *
+ * There are never more creatures than cells, so a store has a slot
+ * for every cell and is never resized. The state of the slots is
+ * kept in a GridStorage, so it may be mapped; the references to the
+ * creatures are kept in chunks created as slots are first issued, so
+ * they take heap in step with the population. Slots are issued and
+ * released under a lock, as births and deaths may happen on several
+ * threads.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class EntityStore
+{
+    // The slot of a creature that is not in a store.
+    public static final int NO_SLOT = -1;
+    // The number of slots in each chunk of owners.
+    private static final int OWNER_CHUNK = 1 << 14;
+
+    // The species id in each slot, or Field.EMPTY if the slot is free.
+    private final GridStorage.Bytes species;
+    // The age of the creature in each slot.
+    private final GridStorage.Ints ages;
+    // The food level of the creature in each slot.
+    private final GridStorage.Ints foodLevels;
+    // The creature in each slot, so that it can be told when it dies,
+    // in chunks of OWNER_CHUNK created as they are needed.
+    private final Creature[][] owners;
+    // The age to which each species can live, indexed by species id.
+    private final int[] maxAges;
+    // Whether each species gets hungry, indexed by species id.
+    private final boolean[] hungry;
+    // Slots released by dead creatures, available for reuse.
+    private final GridStorage.Ints freeSlots;
+    // The number of entries in freeSlots.
+    private int freeCount;
+    // The lowest slot that has never been issued.
+    private int nextSlot;
+
+    /**
+     * Create an empty store for a field of the given size, on the heap.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     */
+    public EntityStore(int depth, int width)
+    {
+        this(depth, width, GridStorage.HEAP);
+    }
+
+    /**
+     * Create an empty store for a field of the given size, keeping
+     * the state of the slots in the given storage.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param storage Where to keep the state of the slots.
+     * @throws IllegalArgumentException If the field has more cells
+     *                                  than an int can index.
+     */
+    public EntityStore(int depth, int width, GridStorage storage)
+    {
+        int capacity = GridStorage.cellCount(depth, width);
+        species = storage.bytes("store-species", capacity);
+        ages = storage.ints("store-ages", capacity);
+        foodLevels = storage.ints("store-food", capacity);
+        owners = new Creature[(capacity + OWNER_CHUNK - 1) / OWNER_CHUNK][];
+        freeSlots = storage.ints("store-free", capacity);
+        maxAges = new int[Species.count() + 1];
+        hungry = new boolean[Species.count() + 1];
+        for(Species kind : Species.all()) {
+            maxAges[kind.getId()] = kind.getMaxAge();
+            hungry[kind.getId()] = kind.getFoodValue() > 0;
+        }
+    }
+
+    /**
+     * Give a creature a slot.
+     * @param owner The creature.
+     * @param age The creature's age.
+     * @param foodLevel The creature's food level.
+     * @return The creature's slot.
+     */
+    public synchronized int allocate(Creature owner, int age, int foodLevel)
+    {
+        int slot;
+        if(freeCount > 0) {
+            freeCount--;
+            slot = freeSlots.get(freeCount);
+        }
+        else {
+            slot = nextSlot++;
+            if(owners[slot / OWNER_CHUNK] == null) {
+                owners[slot / OWNER_CHUNK] = new Creature[OWNER_CHUNK];
+            }
+        }
+        owners[slot / OWNER_CHUNK][slot % OWNER_CHUNK] = owner;
+        ages.put(slot, age);
+        foodLevels.put(slot, foodLevel);
+        species.put(slot, owner.getSpecies().getId());
+        return slot;
+    }
+
+    /**
+     * Return a dead creature's slot to the store so it can be reused.
+     * @param slot The slot to release.
+     */
+    public synchronized void release(int slot)
+    {
+        species.put(slot, Field.EMPTY);
+        owners[slot / OWNER_CHUNK][slot % OWNER_CHUNK] = null;
+        freeSlots.put(freeCount++, slot);
+    }
+
+    /**
+     * Empty the store.
+     */
+    public synchronized void clear()
+    {
+        for(int slot = 0; slot < nextSlot; slot++) {
+            species.put(slot, Field.EMPTY);
+            owners[slot / OWNER_CHUNK][slot % OWNER_CHUNK] = null;
+        }
+        freeCount = 0;
+        nextSlot = 0;
+    }
+
+    /**
+     * Age every creature by one step and make every hungry one more
+     * hungry, in one pass over the slots. Creatures that become too
+     * old or too hungry die.
+     */
+    public void advance()
+    {
+        int end = nextSlot;
+        for(int slot = 0; slot < end; slot++) {
+            byte id = species.get(slot);
+            if(id != Field.EMPTY) {
+                int age = ages.get(slot) + 1;
+                ages.put(slot, age);
+                boolean starved = false;
+                if(hungry[id]) {
+                    int foodLevel = foodLevels.get(slot) - 1;
+                    foodLevels.put(slot, foodLevel);
+                    starved = foodLevel <= 0;
+                }
+                if(age > maxAges[id] || starved) {
+                    owners[slot / OWNER_CHUNK][slot % OWNER_CHUNK].setDead();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param slot A creature's slot.
+     * @return The creature's age.
+     */
+    public int getAge(int slot)
+    {
+        return ages.get(slot);
+    }
+
+    /**
+     * @param slot A creature's slot.
+     * @return The creature's food level.
+     */
+    public int getFoodLevel(int slot)
+    {
+        return foodLevels.get(slot);
+    }
+
+    /**
+     * @param slot A creature's slot.
+     * @param foodLevel The creature's new food level.
+     */
+    public void setFoodLevel(int slot, int foodLevel)
+    {
+        foodLevels.put(slot, foodLevel);
+    }
+
+    /**
+     * Return the number of live creatures in the store.
+     * @return The number of slots in use.
+     */
+    public synchronized int size()
+    {
+        return nextSlot - freeCount;
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A calendar queue of the steps at which rooted creatures next do
+ * something. A creature that only acts now and then is entered
+ * under the step of its next event, and is left alone until that
+ * step comes, so the work of a step is in proportion to the number
+ * of creatures that act in it rather than to the whole population.
+ *
+ * The calendar has a fixed number of buckets, used in rotation, one
+ * per step. An event further ahead than one rotation stays in its
+ * bucket until its step comes round. A creature whose next event
+ * has changed since it was entered, or that has died, is dropped
+ * when its entry comes up.
+ *
+ * The intervals between events come from geometric draws: an event
+ * that happens with probability p on each step is next due after
+ * geometric(p) steps, with one draw instead of one roll per step.
+ *
+ * A calendar is only used by the simulation thread.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class EventCalendar
+{
+    // The number of buckets; a power of two.
+    private static final int BUCKETS = 256;
+    // The initial capacity of a bucket.
+    private static final int INITIAL_BUCKET_SIZE = 16;
+    // The longest interval a geometric draw can give, so that
+    // steps never overflow.
+    private static final int MAX_INTERVAL = 1 << 24;
+
+    // The creatures entered in each bucket.
+    private final Creature[][] buckets;
+    // The number of entries in each bucket.
+    private final int[] sizes;
+
+    /**
+     * Create an empty calendar.
+     */
+    public EventCalendar()
+    {
+        buckets = new Creature[BUCKETS][INITIAL_BUCKET_SIZE];
+        sizes = new int[BUCKETS];
+    }
+
+    /**
+     * Enter a creature under the step of its next event.
+     * @param creature The creature, whose next event is in the future.
+     */
+    public void schedule(Creature creature)
+    {
+        int bucket = creature.getNextEvent() & (BUCKETS - 1);
+        int size = sizes[bucket];
+        if(size == buckets[bucket].length) {
+            buckets[bucket] = Arrays.copyOf(buckets[bucket], size * 2);
+        }
+        buckets[bucket][size] = creature;
+        sizes[bucket] = size + 1;
+    }
+
+    /**
+     * Take out the creatures whose next event is at the given step.
+     * They are added to the list in order of cell, each only once.
+     * @param step The step that is beginning.
+     * @param due The list to receive the creatures.
+     */
+    public void collect(int step, List<Creature> due)
+    {
+        int bucket = step & (BUCKETS - 1);
+        Creature[] entries = buckets[bucket];
+        int size = sizes[bucket];
+        int kept = 0;
+        int first = due.size();
+        for(int i = 0; i < size; i++) {
+            Creature creature = entries[i];
+            if(creature.isAlive()) {
+                int next = creature.getNextEvent();
+                if(next == step) {
+                    due.add(creature);
+                }
+                else if(next > step && (next & (BUCKETS - 1)) == bucket) {
+                    // Due in a later rotation.
+                    entries[kept++] = creature;
+                }
+            }
+        }
+        Arrays.fill(entries, kept, size, null);
+        sizes[bucket] = kept;
+
+        // Put the creatures in a fixed order, whatever order they were
+        // entered in, and drop any entered twice.
+        List<Creature> collected = due.subList(first, due.size());
+        collected.sort((a, b) -> Integer.compare(a.getCell(), b.getCell()));
+        Creature previous = null;
+        for(int i = collected.size() - 1; i >= 0; i--) {
+            Creature creature = collected.get(i);
+            if(creature == previous) {
+                collected.remove(i);
+            }
+            previous = creature;
+        }
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear()
+    {
+        for(int bucket = 0; bucket < BUCKETS; bucket++) {
+            Arrays.fill(buckets[bucket], 0, sizes[bucket], null);
+            sizes[bucket] = 0;
+        }
+    }
+
+    /**
+     * Draw the number of steps until an event that happens with the
+     * given probability on each step.
+     * @param rand The random number generator to draw from.
+     * @param probability The probability of the event on each step.
+     * @return The number of steps, at least one, or MAX_INTERVAL if
+     *         the event never happens.
+     */
+    public static int geometric(Random rand, double probability)
+    {
+        if(probability >= 1) {
+            return 1;
+        }
+        if(probability <= 0) {
+            return MAX_INTERVAL;
+        }
+        // 1 - nextDouble() is in (0, 1], so its log is finite.
+        double steps = Math.log(1 - rand.nextDouble()) / Math.log1p(-probability);
+        return 1 + (int) Math.min(steps, MAX_INTERVAL - 1);
+    }
+}
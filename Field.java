@@ -1,57 +1,288 @@
-import java.util.Collections;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represent a rectangular grid of field positions.
  * Each position is able to store a single organism.
  * 
+ * The field is also divided into square tiles of TILE_SIZE cells a
+ * side, and records for each tile the last epoch in which any of its
+ * cells was placed, moved or cleared. The simulator starts a new
+ * epoch at every step, so anything that keeps a copy of the field
+ * can bring it up to date by looking only at the tiles changed since
+ * the epoch of its copy. Large quiet parts of the sea then cost
+ * nothing to copy or draw.
+ * 
+ * If the field has a DeltaLog, every birth, death, kill and move is
+ * reported to it as it happens.
+ * 
+ * The data kept for every cell, and the bitboards of the species,
+ * are held in a GridStorage, on the heap or in memory-mapped files,
+ * so that a field can be much larger than the heap. The occupants
+ * themselves are stored in chunks that are only created as the
+ * population grows, so the heap needed follows the number of
+ * organisms rather than the number of cells.
+ * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
 public class Field
 {
-    // A random number generator for providing random locations.
-    private static final Random rand = Randomizer.getRandom();
+    // The species id stored in a cell that holds nothing.
+    public static final byte EMPTY = 0;
+    // The species id stored for an occupant that is not an organism.
+    public static final byte OTHER = -1;
+    // The number of cells adjacent to a cell away from the edges.
+    static final int DIRECTIONS = 8;
+    // The number of cells along each side of a tile.
+    public static final int TILE_SIZE = 32;
+    // The number of occupants in each chunk of the occupant store.
+    private static final int OCCUPANT_CHUNK = 1 << 14;
+    // The mask with a bit set for every direction.
+    private static final int ALL_DIRECTIONS = (1 << DIRECTIONS) - 1;
+    // The row and column offsets of each direction.
+    private static final int[] ROW_OFFSETS = { -1, -1, -1, 0, 0, 1, 1, 1 };
+    private static final int[] COL_OFFSETS = { -1, 0, 1, -1, 1, -1, 0, 1 };
+    // The number of orders in which the directions can be visited.
+    private static final int PERMUTATION_COUNT = 40320;
+    // Every order of the eight directions, one after another.
+    private static final byte[] PERMUTATIONS = makePermutations();
     
     // The depth and width of the field.
     private int depth, width;
-    // Storage for the animals.
-    private Object[][] field;
+    // The species id of the occupant of each cell, indexed by
+    // row * width + col.
+    private GridStorage.Bytes species;
+    // The handle of the occupant of each cell in the occupant store.
+    // Only meaningful where the species id is not EMPTY.
+    private GridStorage.Ints handles;
+    // Storage for the organisms, in chunks of OCCUPANT_CHUNK indexed
+    // by handle. Chunks are created as they are needed, and never
+    // move, so they can be read without a lock.
+    private Object[][] occupants;
+    // Handles released by cleared cells, available for reuse.
+    private int[] freeHandles;
+    // The number of entries in freeHandles.
+    private int freeCount;
+    // The lowest handle that has never been issued.
+    private int nextHandle;
+    // The difference in cell index for a step in each direction.
+    private int[] directionOffsets;
+    // For each cell, the directions that stay within the grid,
+    // one bit per direction.
+    private GridStorage.Bytes validDirections;
+    // The cursors handed out for walks over adjacent cells, one
+    // per thread so that parts of the field can be worked on
+    // in parallel.
+    private ThreadLocal<NeighbourCursor> cursors;
+    // The number of organisms of each species in the field, indexed
+    // by species id. Kept up to date by place, move and clear.
+    private LongAdder[] populations;
+    // For each cell, the adjacent cells that are free, one bit per
+    // direction. Kept up to date by place, move and clear.
+    private GridStorage.Bytes freeNeighbours;
+    // The cells that hold each species, indexed by species id.
+    private Bitboard[] speciesBoards;
+    // The number of rows and columns of tiles.
+    private int tileRows, tileCols;
+    // The last epoch in which a cell of each tile changed, indexed
+    // by tileRow * tileCols + tileCol. Every thread that writes an
+    // entry within a step writes the same value, so none is locked.
+    private int[] tileEpochs;
+    // The current epoch.
+    private int epoch;
+    // The log told of every change to the cells, or null.
+    private DeltaLog log;
 
     /**
-     * Represent a field of the given dimensions.
+     * Represent a field of the given dimensions, on the heap.
      * @param depth The depth of the field.
      * @param width The width of the field.
      */
     public Field(int depth, int width)
+    {
+        this(depth, width, GridStorage.HEAP);
+    }
+
+    /**
+     * Represent a field of the given dimensions, keeping the data of
+     * each cell in the given storage.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param storage Where to keep the data of each cell.
+     */
+    public Field(int depth, int width, GridStorage storage)
     {
         this.depth = depth;
         this.width = width;
-        field = new Object[depth][width];
+        int cells = GridStorage.cellCount(depth, width);
+        species = storage.bytes("species", cells);
+        handles = storage.ints("handles", cells);
+        occupants = new Object[(cells + OCCUPANT_CHUNK - 1) / OCCUPANT_CHUNK][];
+        freeHandles = new int[OCCUPANT_CHUNK];
+        directionOffsets = new int[DIRECTIONS];
+        for(int direction = 0; direction < DIRECTIONS; direction++) {
+            directionOffsets[direction] = ROW_OFFSETS[direction] * width + COL_OFFSETS[direction];
+        }
+        validDirections = storage.bytes("directions", cells);
+        for(int row = 0; row < depth; row++) {
+            for(int col = 0; col < width; col++) {
+                int valid = 0;
+                for(int direction = 0; direction < DIRECTIONS; direction++) {
+                    int nextRow = row + ROW_OFFSETS[direction];
+                    int nextCol = col + COL_OFFSETS[direction];
+                    if(nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width) {
+                        valid |= 1 << direction;
+                    }
+                }
+                validDirections.put(row * width + col, (byte) valid);
+            }
+        }
+        cursors = ThreadLocal.withInitial(() -> new NeighbourCursor(this));
+        populations = new LongAdder[Species.count() + 1];
+        for(int id = 0; id < populations.length; id++) {
+            populations[id] = new LongAdder();
+        }
+        freeNeighbours = storage.bytes("neighbours", cells);
+        freeNeighbours.copyFrom(validDirections);
+        speciesBoards = new Bitboard[Species.count() + 1];
+        for(int id = 1; id < speciesBoards.length; id++) {
+            speciesBoards[id] = new Bitboard(depth, width, storage, "board" + id);
+        }
+        tileRows = (depth + TILE_SIZE - 1) / TILE_SIZE;
+        tileCols = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tileEpochs = new int[tileRows * tileCols];
     }
     
     /**
      * Empty the field.
      */
-    public void clear()
+    public synchronized void clear()
     {
-        for(int row = 0; row < depth; row++) {
-            for(int col = 0; col < width; col++) {
-                field[row][col] = null;
-            }
+        species.clear();
+        for(int handle = 0; handle < nextHandle; handle += OCCUPANT_CHUNK) {
+            Arrays.fill(occupants[handle / OCCUPANT_CHUNK], null);
+        }
+        freeCount = 0;
+        nextHandle = 0;
+        for(LongAdder population : populations) {
+            population.reset();
+        }
+        freeNeighbours.copyFrom(validDirections);
+        for(int id = 1; id < speciesBoards.length; id++) {
+            speciesBoards[id].clear();
+        }
+        // Every tile has changed.
+        epoch++;
+        Arrays.fill(tileEpochs, epoch);
+        if(log != null) {
+            log.fieldCleared();
+        }
+    }
+    
+    /**
+     * Set the log to be told of every change to the cells.
+     * @param log The log, or null for none.
+     * @throws IllegalArgumentException If the field has more cells
+     *                                  than a log has room for.
+     */
+    public void setDeltaLog(DeltaLog log)
+    {
+        if(log != null && (long) depth * width > DeltaLog.MAX_CELLS) {
+            throw new IllegalArgumentException("A " + depth + "x" + width
+                                               + " field is too large to log");
+        }
+        this.log = log;
+    }
+
+    /**
+     * Record that a phase of work on the field has finished, so that
+     * the log puts the changes made in it before any made later by
+     * other threads. Must not be called while organisms are acting.
+     */
+    public void phaseCompleted()
+    {
+        if(log != null) {
+            log.phaseCompleted();
         }
     }
     
+    /**
+     * Start a new epoch. Changes from now on are recorded under it.
+     * Must not be called while organisms are acting.
+     */
+    public void advanceEpoch()
+    {
+        epoch++;
+    }
+    
+    /**
+     * @return The current epoch.
+     */
+    public int getEpoch()
+    {
+        return epoch;
+    }
+    
+    /**
+     * @return The number of tiles the field is divided into.
+     */
+    public int getTileCount()
+    {
+        return tileEpochs.length;
+    }
+    
+    /**
+     * @return The number of columns of tiles.
+     */
+    public int getTileCols()
+    {
+        return tileCols;
+    }
+    
+    /**
+     * Return whether any cell of a tile has changed since an epoch.
+     * @param tile The tile index, tileRow * getTileCols() + tileCol.
+     * @param since The epoch, which may be negative to include all.
+     * @return true if a cell changed in a later epoch.
+     */
+    public boolean isTileChangedSince(int tile, int since)
+    {
+        return tileEpochs[tile] > since;
+    }
+    
+    /**
+     * Return whether any cell of a tile has changed in the current
+     * epoch, that is in the last step.
+     * @param tile The tile index, tileRow * getTileCols() + tileCol.
+     * @return true if a cell of the tile has changed.
+     */
+    public boolean isTileChanged(int tile)
+    {
+        return tileEpochs[tile] == epoch;
+    }
+    
+    /**
+     * Record that a cell has changed in the current epoch.
+     * @param cell The cell index, row * width + col.
+     */
+    private void touch(int cell)
+    {
+        int row = cell / width;
+        int col = cell - row * width;
+        tileEpochs[(row / TILE_SIZE) * tileCols + col / TILE_SIZE] = epoch;
+    }
+    
     /**
      * Clear the given location.
      * @param location The location to clear.
      */
     public void clear(Location location)
     {
-        field[location.getRow()][location.getCol()] = null;
+        clear(location.getRow() * width + location.getCol());
     }
     
     /**
@@ -64,7 +295,7 @@ public class Field
      */
     public void place(Object organism, int row, int col)
     {
-        place(organism, new Location(row, col));
+        place(organism, row * width + col);
     }
     
     /**
@@ -76,7 +307,7 @@ public class Field
      */
     public void place(Object organism, Location location)
     {
-        field[location.getRow()][location.getCol()] = organism;
+        place(organism, location.getRow() * width + location.getCol());
     }
     
     /**
@@ -97,7 +328,162 @@ public class Field
      */
     public Object getObjectAt(int row, int col)
     {
-        return field[row][col];
+        int cell = row * width + col;
+        if(species.get(cell) == EMPTY) {
+            return null;
+        }
+        return occupant(handles.get(cell));
+    }
+    
+    /**
+     * Return the species id of the occupant of the given location.
+     * This does not touch the occupant itself.
+     * @param row The desired row.
+     * @param col The desired column.
+     * @return The species id, EMPTY if there is no occupant, or
+     *         OTHER if the occupant is not an organism.
+     */
+    public byte getSpeciesAt(int row, int col)
+    {
+        return species.get(row * width + col);
+    }
+    
+    /**
+     * Return the species id of the occupant of the given cell.
+     * @param cell The cell index, row * width + col.
+     * @return The species id, EMPTY or OTHER.
+     */
+    public byte getSpeciesAt(int cell)
+    {
+        return species.get(cell);
+    }
+    
+    /**
+     * Copy the species id of every cell into the given array.
+     * @param into An array of depth * width entries.
+     */
+    public void copySpecies(byte[] into)
+    {
+        species.copyTo(0, into, 0, species.size());
+    }
+    
+    /**
+     * Copy the species id of every cell of a run of tiles in the same
+     * row of tiles into the given array, at the same indexes as in the
+     * field. The run is copied a row of cells at a time.
+     * @param into An array of depth * width entries.
+     * @param first The index of the first tile, tileRow * getTileCols() + tileCol.
+     * @param end The index after the last tile, in the same row of tiles.
+     */
+    public void copySpecies(byte[] into, int first, int end)
+    {
+        int top = (first / tileCols) * TILE_SIZE;
+        int left = (first % tileCols) * TILE_SIZE;
+        int bottom = Math.min(top + TILE_SIZE, depth);
+        int length = Math.min((end - first) * TILE_SIZE, width - left);
+        for(int row = top; row < bottom; row++) {
+            int start = row * width + left;
+            species.copyTo(start, into, start, length);
+        }
+    }
+    
+    /**
+     * Copy the species id of every cell into a buffer.
+     * @param into The buffer.
+     * @param offset Where in the buffer the cells start, in the same
+     *               order as in the field.
+     */
+    public void copySpecies(ByteBuffer into, int offset)
+    {
+        species.copyTo(0, into, offset, species.size());
+    }
+    
+    /**
+     * Copy the species id of every cell of a run of tiles in the same
+     * row of tiles into a buffer, as copySpecies(byte[], int, int)
+     * does into an array.
+     * @param into The buffer.
+     * @param offset Where in the buffer the cells start, in the same
+     *               order as in the field.
+     * @param first The index of the first tile, tileRow * getTileCols() + tileCol.
+     * @param end The index after the last tile, in the same row of tiles.
+     */
+    public void copySpecies(ByteBuffer into, int offset, int first, int end)
+    {
+        int top = (first / tileCols) * TILE_SIZE;
+        int left = (first % tileCols) * TILE_SIZE;
+        int bottom = Math.min(top + TILE_SIZE, depth);
+        int length = Math.min((end - first) * TILE_SIZE, width - left);
+        for(int row = top; row < bottom; row++) {
+            int start = row * width + left;
+            species.copyTo(start, into, offset + start, length);
+        }
+    }
+    
+    /**
+     * Return the number of organisms of the given species in the field.
+     * The count is kept up to date as organisms are placed and cleared,
+     * so this does not look at the cells.
+     * @param kind The species to count.
+     * @return The number of organisms of that species.
+     */
+    public int getPopulation(Species kind)
+    {
+        return (int) populations[kind.getId()].sum();
+    }
+    
+    /**
+     * Return the organism in the given cell, if any.
+     * @param cell The cell index, row * width + col.
+     * @return The organism in the cell, or null if there is none.
+     */
+    public Object getObjectAt(int cell)
+    {
+        if(species.get(cell) == EMPTY) {
+            return null;
+        }
+        return occupant(handles.get(cell));
+    }
+    
+    /**
+     * Tell whether the given cell is empty.
+     * @param cell The cell index, row * width + col.
+     * @return true if nothing occupies the cell.
+     */
+    public boolean isFree(int cell)
+    {
+        return species.get(cell) == EMPTY;
+    }
+    
+    /**
+     * Return the index of the cell at the given location.
+     * @param location A location within the field.
+     * @return The cell index, row * width + col.
+     */
+    public int cellOf(Location location)
+    {
+        return location.getRow() * width + location.getCol();
+    }
+    
+    /**
+     * Return the index of the cell at the given row and column.
+     * @param row The row.
+     * @param col The column.
+     * @return The cell index, row * width + col.
+     */
+    public int cellOf(int row, int col)
+    {
+        return row * width + col;
+    }
+    
+    /**
+     * Return the location of the given cell.
+     * @param cell The cell index, row * width + col.
+     * @return The location of the cell.
+     */
+    public Location locationOf(int cell)
+    {
+        return new Location(cell / width, cell % width);
     }
     
     /**
@@ -110,8 +496,13 @@ public class Field
      */
     public Location randomAdjacentLocation(Location location)
     {
-        List<Location> adjacent = adjacentLocations(location);
-        return adjacent.get(0);
+        NeighbourCursor adjacent = adjacentCells(location);
+        if(adjacent.hasNext()) {
+            return locationOf(adjacent.next());
+        }
+        else {
+            return location;
+        }
     }
     
     /**
@@ -122,11 +513,9 @@ public class Field
     public List<Location> getFreeAdjacentLocations(Location location)
     {
         List<Location> free = new LinkedList<>();
-        List<Location> adjacent = adjacentLocations(location);
-        for(Location next : adjacent) {
-            if(getObjectAt(next) == null) {
-                free.add(next);
-            }
+        NeighbourCursor adjacent = freeAdjacentCells(cellOf(location));
+        while(adjacent.hasNext()) {
+            free.add(locationOf(adjacent.next()));
         }
         return free;
     }
@@ -141,15 +530,77 @@ public class Field
      */
     public Location freeAdjacentLocation(Location location)
     {
-        // The available free ones.
-        List<Location> free = getFreeAdjacentLocations(location);
-        if(free.size() > 0) {
-            return free.get(0);
+        int free = freeAdjacentCell(cellOf(location));
+        if(free >= 0) {
+            return locationOf(free);
         }
         else {
             return null;
         } 
     }
+    
+    /**
+     * Try to find a free cell that is adjacent to the given cell.
+     * @param cell The cell index, row * width + col.
+     * @return The index of a free adjacent cell, or -1 if there is none.
+     */
+    public int freeAdjacentCell(int cell)
+    {
+        int free = freeNeighbours.get(cell) & 0xFF;
+        if(free == 0) {
+            return -1;
+        }
+        // Pick one of the free directions at random.
+        for(int skip = Randomizer.getRandom().nextInt(Integer.bitCount(free)); skip > 0; skip--) {
+            free &= free - 1;
+        }
+        return step(cell, Integer.numberOfTrailingZeros(free));
+    }
+
+    /**
+     * Tell whether any cell adjacent to the given cell is free.
+     * This reads the cell's free-neighbour mask, not the cells.
+     * @param cell The cell index, row * width + col.
+     * @return true if there is a free adjacent cell.
+     */
+    public boolean hasFreeAdjacentCell(int cell)
+    {
+        return freeNeighbours.get(cell) != 0;
+    }
+
+    /**
+     * Start a walk over the free cells adjacent to the given cell,
+     * in a random order. The cells walked are those that were free
+     * when the walk started. The cursor is reused by the next walk.
+     * @param cell The cell index, row * width + col.
+     * @return A cursor over the free adjacent cells.
+     */
+    public NeighbourCursor freeAdjacentCells(int cell)
+    {
+        NeighbourCursor cursor = cursors.get();
+        cursor.reset(cell, freeNeighbours.get(cell),
+                     Randomizer.getRandom().nextInt(PERMUTATION_COUNT) * DIRECTIONS);
+        return cursor;
+    }
+
+    /**
+     * Tell whether any cell adjacent to the given cell holds a
+     * member of one of the species in a diet. This looks at the
+     * bits of each species, not at the cells.
+     * @param cell The cell index, row * width + col.
+     * @param diet A diet, as returned by Species.getDiet.
+     * @return true if there is an adjacent member of the diet.
+     */
+    public boolean hasAdjacent(int cell, long diet)
+    {
+        for(long remaining = diet; remaining != 0; remaining &= remaining - 1) {
+            int id = Long.numberOfTrailingZeros(remaining);
+            if(speciesBoards[id].neighbours(cell) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     /**
      * Return a shuffled list of locations adjacent to the given one.
@@ -164,27 +615,60 @@ public class Field
         // The list of locations to be returned.
         List<Location> locations = new LinkedList<>();
         if(location != null) {
-            int row = location.getRow();
-            int col = location.getCol();
-            for(int roffset = -1; roffset <= 1; roffset++) {
-                int nextRow = row + roffset;
-                if(nextRow >= 0 && nextRow < depth) {
-                    for(int coffset = -1; coffset <= 1; coffset++) {
-                        int nextCol = col + coffset;
-                        // Exclude invalid locations and the original location.
-                        if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
-                        }
-                    }
-                }
+            NeighbourCursor adjacent = adjacentCells(location);
+            while(adjacent.hasNext()) {
+                locations.add(locationOf(adjacent.next()));
             }
-            
-            // Shuffle the list. Several other methods rely on the list
-            // being in a random order.
-            Collections.shuffle(locations, rand);
         }
         return locations;
     }
+    
+    /**
+     * Start a walk over the cells adjacent to the given location,
+     * in a random order. Several other methods rely on the order
+     * being random. The cursor is reused by the next walk.
+     * @param location The location from which to walk.
+     * @return A cursor over the adjacent cells.
+     */
+    public NeighbourCursor adjacentCells(Location location)
+    {
+        return adjacentCells(cellOf(location));
+    }
+    
+    /**
+     * Start a walk over the cells adjacent to the given cell,
+     * in a random order. The cursor is reused by the next walk.
+     * @param cell The cell index, row * width + col.
+     * @return A cursor over the adjacent cells.
+     */
+    public NeighbourCursor adjacentCells(int cell)
+    {
+        NeighbourCursor cursor = cursors.get();
+        cursor.reset(cell, validDirections.get(cell),
+                     Randomizer.getRandom().nextInt(PERMUTATION_COUNT) * DIRECTIONS);
+        return cursor;
+    }
+    
+    /**
+     * Return the cell one step from the given cell.
+     * @param cell The cell index, row * width + col.
+     * @param direction The direction of the step, which must stay in the grid.
+     * @return The index of the cell reached.
+     */
+    int step(int cell, int direction)
+    {
+        return cell + directionOffsets[direction];
+    }
+    
+    /**
+     * Return one entry of the permutation table.
+     * @param index The index into the table.
+     * @return The direction stored there.
+     */
+    static int permutedDirection(int index)
+    {
+        return PERMUTATIONS[index];
+    }
 
     /**
      * Return the depth of the field.
@@ -203,4 +687,281 @@ public class Field
     {
         return width;
     }
+    
+    /**
+     * Place an organism in the given cell.
+     * If there is already an organism in the cell it will
+     * be lost.
+     * @param occupant The organism to be placed.
+     * @param cell The cell index, row * width + col.
+     */
+    public void place(Object occupant, int cell)
+    {
+        if(species.get(cell) != EMPTY) {
+            if(log != null) {
+                log.death(cell);
+            }
+            remove(cell);
+        }
+        else {
+            markNeighbours(cell, false);
+        }
+        touch(cell);
+        handles.put(cell, allocateHandle(occupant));
+        if(occupant instanceof Organism) {
+            byte id = ((Organism) occupant).getSpecies().getId();
+            species.put(cell, id);
+            populations[id].increment();
+            speciesBoards[id].set(cell);
+        }
+        else {
+            species.put(cell, OTHER);
+        }
+        if(log != null) {
+            log.birth(cell, species.get(cell));
+        }
+    }
+    
+    /**
+     * Clear the given cell.
+     * @param cell The cell index, row * width + col.
+     */
+    public void clear(int cell)
+    {
+        clear(cell, false);
+    }
+    
+    /**
+     * Clear the given cell, whose occupant has been eaten.
+     * @param cell The cell index, row * width + col.
+     */
+    public void clearEaten(int cell)
+    {
+        clear(cell, true);
+    }
+    
+    /**
+     * Clear the given cell.
+     * @param cell The cell index, row * width + col.
+     * @param eaten Whether the occupant has been eaten.
+     */
+    private void clear(int cell, boolean eaten)
+    {
+        if(species.get(cell) != EMPTY) {
+            if(log != null) {
+                if(eaten) {
+                    log.kill(cell);
+                }
+                else {
+                    log.death(cell);
+                }
+            }
+            remove(cell);
+            species.put(cell, EMPTY);
+            markNeighbours(cell, true);
+            touch(cell);
+        }
+    }
+    
+    /**
+     * Move the occupant of one cell to another. If there is already
+     * an organism in the destination it will be lost.
+     * @param from The index of the occupied cell.
+     * @param to The index of the destination cell.
+     */
+    public void move(int from, int to)
+    {
+        if(species.get(to) != EMPTY) {
+            if(log != null) {
+                log.death(to);
+            }
+            remove(to);
+        }
+        else {
+            markNeighbours(to, false);
+        }
+        if(log != null) {
+            log.move(from, to);
+        }
+        byte id = species.get(from);
+        species.put(to, id);
+        handles.put(to, handles.get(from));
+        species.put(from, EMPTY);
+        markNeighbours(from, true);
+        touch(from);
+        touch(to);
+        if(id > EMPTY) {
+            speciesBoards[id].set(to);
+            speciesBoards[id].clear(from);
+        }
+    }
+    
+    /**
+     * Forget the occupant of a cell, releasing its handle and
+     * removing it from the population counts and its species' bits.
+     * The species id of the cell is left for the caller to overwrite,
+     * and the free-neighbour masks are left for the caller to update.
+     * @param cell The index of an occupied cell.
+     */
+    private void remove(int cell)
+    {
+        byte id = species.get(cell);
+        if(id > EMPTY) {
+            populations[id].decrement();
+            speciesBoards[id].clear(cell);
+        }
+        releaseHandle(handles.get(cell));
+    }
+    
+    /**
+     * Record in the free-neighbour mask of every cell adjacent to
+     * the given one whether the given cell is free. Direction d from
+     * a cell and direction DIRECTIONS - 1 - d lead opposite ways.
+     * @param cell The cell index, row * width + col.
+     * @param free Whether the cell has become free or occupied.
+     */
+    private void markNeighbours(int cell, boolean free)
+    {
+        int valid = validDirections.get(cell) & 0xFF;
+        if(valid == ALL_DIRECTIONS) {
+            // Away from the edges, all eight neighbours are written
+            // directly: the cells of the rows above and below are
+            // consecutive.
+            int above = cell - width;
+            int below = cell + width;
+            if(free) {
+                setMaskBits(above - 1, 0x80);
+                setMaskBits(above, 0x40);
+                setMaskBits(above + 1, 0x20);
+                setMaskBits(cell - 1, 0x10);
+                setMaskBits(cell + 1, 0x08);
+                setMaskBits(below - 1, 0x04);
+                setMaskBits(below, 0x02);
+                setMaskBits(below + 1, 0x01);
+            }
+            else {
+                clearMaskBits(above - 1, 0x80);
+                clearMaskBits(above, 0x40);
+                clearMaskBits(above + 1, 0x20);
+                clearMaskBits(cell - 1, 0x10);
+                clearMaskBits(cell + 1, 0x08);
+                clearMaskBits(below - 1, 0x04);
+                clearMaskBits(below, 0x02);
+                clearMaskBits(below + 1, 0x01);
+            }
+            return;
+        }
+        while(valid != 0) {
+            int direction = Integer.numberOfTrailingZeros(valid);
+            valid &= valid - 1;
+            int neighbour = cell + directionOffsets[direction];
+            int bit = 1 << (DIRECTIONS - 1 - direction);
+            if(free) {
+                setMaskBits(neighbour, bit);
+            }
+            else {
+                clearMaskBits(neighbour, bit);
+            }
+        }
+    }
+    
+    /**
+     * Set bits in the free-neighbour mask of a cell.
+     * @param cell The cell index, row * width + col.
+     * @param bits The bits to set.
+     */
+    private void setMaskBits(int cell, int bits)
+    {
+        freeNeighbours.put(cell, (byte) (freeNeighbours.get(cell) | bits));
+    }
+    
+    /**
+     * Clear bits in the free-neighbour mask of a cell.
+     * @param cell The cell index, row * width + col.
+     * @param bits The bits to clear.
+     */
+    private void clearMaskBits(int cell, int bits)
+    {
+        freeNeighbours.put(cell, (byte) (freeNeighbours.get(cell) & ~bits));
+    }
+    
+    /**
+     * Return the occupant with the given handle.
+     * @param handle The handle.
+     * @return The occupant.
+     */
+    private Object occupant(int handle)
+    {
+        return occupants[handle / OCCUPANT_CHUNK][handle % OCCUPANT_CHUNK];
+    }
+    
+    /**
+     * Store an occupant, reusing a released handle if possible.
+     * Handles are shared by the whole field, so this is synchronized.
+     * @param occupant The occupant to be stored.
+     * @return The occupant's handle.
+     */
+    private synchronized int allocateHandle(Object occupant)
+    {
+        int handle;
+        if(freeCount > 0) {
+            freeCount--;
+            handle = freeHandles[freeCount];
+        }
+        else {
+            handle = nextHandle++;
+            if(occupants[handle / OCCUPANT_CHUNK] == null) {
+                occupants[handle / OCCUPANT_CHUNK] = new Object[OCCUPANT_CHUNK];
+            }
+        }
+        occupants[handle / OCCUPANT_CHUNK][handle % OCCUPANT_CHUNK] = occupant;
+        return handle;
+    }
+    
+    /**
+     * Return a handle to the store so that it can be reused.
+     * @param handle The handle to release.
+     */
+    private synchronized void releaseHandle(int handle)
+    {
+        occupants[handle / OCCUPANT_CHUNK][handle % OCCUPANT_CHUNK] = null;
+        if(freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+    }
+    
+    /**
+     * Build the table of every order of the eight directions,
+     * in lexicographic order.
+     * @return The orders, eight entries each.
+     */
+    private static byte[] makePermutations()
+    {
+        byte[] table = new byte[PERMUTATION_COUNT * DIRECTIONS];
+        byte[] order = { 0, 1, 2, 3, 4, 5, 6, 7 };
+        for(int p = 0; p < PERMUTATION_COUNT; p++) {
+            System.arraycopy(order, 0, table, p * DIRECTIONS, DIRECTIONS);
+            // Step to the next order.
+            int i = DIRECTIONS - 2;
+            while(i >= 0 && order[i] >= order[i + 1]) {
+                i--;
+            }
+            if(i >= 0) {
+                int j = DIRECTIONS - 1;
+                while(order[j] <= order[i]) {
+                    j--;
+                }
+                byte swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+                for(int a = i + 1, b = DIRECTIONS - 1; a < b; a++, b--) {
+                    swap = order[a];
+                    order[a] = order[b];
+                    order[b] = swap;
+                }
+            }
+        }
+        return table;
+    }
 }
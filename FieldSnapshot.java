@@ -0,0 +1,225 @@
+/**
+ * A copy of the state of a field at the end of one step: the
+ * species id of every cell and the population of each species.
+ * A snapshot is filled in by the simulation thread and can then be
+ * read by another thread, such as the Swing event thread, while the
+ * simulation carries on.
+ *
+ * Snapshots are reused to avoid allocating a new copy of the grid
+ * for each step, so the thread that fills one must not touch it
+ * again until the reader has handed it back.
+ *
+ * Only the tiles of the field that have changed since the previous
+ * capture are copied, and the snapshot lists them so that a reader
+ * that keeps its own copy, such as a view's image, can update only
+ * those too. Every FULL_SWEEP_INTERVAL captures the whole field is
+ * copied instead, and the tiles that were not marked as changed are
+ * checked against the field first: any cell found to differ is
+ * counted by getMismatches, and put right by the copy.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class FieldSnapshot
+{
+    // The number of captures from one full copy to the next.
+    private static final int FULL_SWEEP_INTERVAL = 64;
+
+    // The step at which the snapshot was taken.
+    private int step;
+    // The depth and width of the field.
+    private final int depth, width;
+    // The species id of each cell, indexed by row * width + col.
+    private final byte[] species;
+    // The population of each species, indexed by species id.
+    private final int[] populations;
+    // The tiles copied by the last capture, in increasing order.
+    private int[] changedTiles;
+    // The number of entries in changedTiles.
+    private int changedCount;
+    // The epoch of the field at the last capture, or -1 if there
+    // has been none.
+    private int epoch;
+    // The field copied by the last capture.
+    private Field source;
+    // The number of captures since the last full copy.
+    private int sinceFullSweep;
+    // The number of cells found to differ from the field in tiles
+    // that were not marked as changed.
+    private long mismatches;
+
+    /**
+     * Create an empty snapshot for fields of the given size.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     */
+    public FieldSnapshot(int depth, int width)
+    {
+        this.depth = depth;
+        this.width = width;
+        species = new byte[depth * width];
+        populations = new int[Species.count() + 1];
+        changedTiles = new int[0];
+        epoch = -1;
+    }
+
+    /**
+     * Copy the current state of the field into this snapshot.
+     * @param step The current step of the simulation.
+     * @param field The field to copy, which must be the size of the snapshot.
+     */
+    public void capture(int step, Field field)
+    {
+        this.step = step;
+        if(changedTiles.length != field.getTileCount()) {
+            changedTiles = new int[field.getTileCount()];
+        }
+        boolean fullSweep = field != source || ++sinceFullSweep >= FULL_SWEEP_INTERVAL;
+        if(fullSweep && field == source) {
+            checkUnchangedTiles(field);
+        }
+        changedCount = 0;
+        for(int tile = 0; tile < changedTiles.length; tile++) {
+            if(fullSweep || field.isTileChangedSince(tile, epoch)) {
+                changedTiles[changedCount++] = tile;
+            }
+        }
+        if(changedCount * 2 > changedTiles.length) {
+            // One copy of the whole grid is quicker than many pieces.
+            field.copySpecies(species);
+        }
+        else {
+            copyChangedTiles(field);
+        }
+        if(fullSweep) {
+            sinceFullSweep = 0;
+        }
+        source = field;
+        epoch = field.getEpoch();
+        for(int id = 1; id < populations.length; id++) {
+            populations[id] = field.getPopulation(Species.fromId((byte) id));
+        }
+    }
+
+    /**
+     * Copy the tiles listed in changedTiles from the field, taking
+     * each run of tiles next to each other along a row together.
+     * @param field The field to copy.
+     */
+    private void copyChangedTiles(Field field)
+    {
+        int tileCols = field.getTileCols();
+        int i = 0;
+        while(i < changedCount) {
+            int first = changedTiles[i];
+            int end = first + 1;
+            i++;
+            while(i < changedCount && changedTiles[i] == end && end % tileCols != 0) {
+                end++;
+                i++;
+            }
+            field.copySpecies(species, first, end);
+        }
+    }
+
+    /**
+     * Count the cells that differ from the field in the tiles that
+     * have not changed since the last capture.
+     * @param field The field of the last capture.
+     */
+    private void checkUnchangedTiles(Field field)
+    {
+        int tileCols = field.getTileCols();
+        for(int tile = 0; tile < changedTiles.length; tile++) {
+            if(!field.isTileChangedSince(tile, epoch)) {
+                int top = (tile / tileCols) * Field.TILE_SIZE;
+                int left = (tile % tileCols) * Field.TILE_SIZE;
+                int bottom = Math.min(top + Field.TILE_SIZE, depth);
+                int right = Math.min(left + Field.TILE_SIZE, width);
+                for(int row = top; row < bottom; row++) {
+                    for(int col = left; col < right; col++) {
+                        if(species[row * width + col] != field.getSpeciesAt(row, col)) {
+                            mismatches++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the number of tiles copied by the last capture. These
+     * are all the tiles that may differ from the capture before.
+     * @return The number of tiles.
+     */
+    public int getChangedTileCount()
+    {
+        return changedCount;
+    }
+
+    /**
+     * Return one of the tiles copied by the last capture.
+     * @param index The index, less than getChangedTileCount().
+     * @return The tile index, tileRow * tileCols + tileCol, where
+     *         tiles are Field.TILE_SIZE cells a side.
+     */
+    public int getChangedTile(int index)
+    {
+        return changedTiles[index];
+    }
+
+    /**
+     * Return the number of cells found by full sweeps to differ from
+     * the field although their tiles were not marked as changed. This
+     * should always be zero.
+     * @return The number of cells.
+     */
+    public long getMismatches()
+    {
+        return mismatches;
+    }
+
+    /**
+     * @return The step at which the snapshot was taken.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The depth of the field.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return The width of the field.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Return the species id of the given cell.
+     * @param cell The cell index, row * width + col.
+     * @return The species id, Field.EMPTY or Field.OTHER.
+     */
+    public byte getSpeciesAt(int cell)
+    {
+        return species[cell];
+    }
+
+    /**
+     * Return the population of a species when the snapshot was taken.
+     * @param kind The species to count.
+     * @return The number of organisms of that species.
+     */
+    public int getPopulation(Species kind)
+    {
+        return populations[kind.getId()];
+    }
+}
@@ -1,30 +1,19 @@
-import java.awt.Color;
-import java.util.HashMap;
-
 /**
- * This class collects and provides some statistical data on the state 
- * of a field. It is flexible: it will create and maintain a counter 
- * for any class of object that is found within the field.
+ * This class provides some statistical data on the state of a
+ * field. The field keeps a count of each species up to date as
+ * organisms are placed and cleared, so every query here costs
+ * one lookup per species however large the field is.
  * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
 public class FieldStats
 {
-    // Counters for each type of entity in the simulation.
-    private HashMap<Class, Counter> counters;
-    // Whether the counters are currently up to date.
-    private boolean countsValid;
-
     /**
      * Construct a FieldStats object.
      */
     public FieldStats()
     {
-        // Set up a collection for counters for each type of organism that
-        // we might find
-        counters = new HashMap<>();
-        countsValid = true;
     }
 
     /**
@@ -34,55 +23,41 @@ public class FieldStats
     public String getPopulationDetails(Field field)
     {
         StringBuffer buffer = new StringBuffer();
-        if(!countsValid) {
-            generateCounts(field);
-        }
-        for(Class key : counters.keySet()) {
-            Counter info = counters.get(key);
-            buffer.append(info.getName());
+        for(Species species : Species.all()) {
+            buffer.append(species.getName());
             buffer.append(": ");
-            buffer.append(info.getCount());
+            buffer.append(field.getPopulation(species));
             buffer.append(' ');
         }
         return buffer.toString();
     }
     
     /**
-     * Invalidate the current set of statistics; reset all 
-     * counts to zero.
+     * Get details of what was in the field when a snapshot was taken.
+     * @param snapshot The snapshot to describe.
+     * @return A string describing what was in the field.
      */
-    public void reset()
+    public String getPopulationDetails(FieldSnapshot snapshot)
     {
-        countsValid = false;
-        for(Class key : counters.keySet()) {
-            Counter count = counters.get(key);
-            count.reset();
-        }
-    }
-
-    /**
-     * Increment the count for one class of organism.
-     * @param organismClass The class of organism to increment.
-     */
-    public void incrementCount(Class organismClass)
-    {
-        Counter count = counters.get(organismClass);
-        if(count == null) {
-            // We do not have a counter for this species yet.
-            // Create one.
-            count = new Counter(organismClass.getName());
-            counters.put(organismClass, count);
+        StringBuffer buffer = new StringBuffer();
+        for(Species species : Species.all()) {
+            buffer.append(species.getName());
+            buffer.append(": ");
+            buffer.append(snapshot.getPopulation(species));
+            buffer.append(' ');
         }
-        count.increment();
+        return buffer.toString();
     }
     
-
     /**
-     * Indicate that an organism count has been completed.
+     * Return the number of organisms of one species in the field.
+     * @param field The field to count.
+     * @param species The species to count.
+     * @return The number of organisms of that species.
      */
-    public void countFinished()
+    public int getCount(Field field, Species species)
     {
-        countsValid = true;
+        return field.getPopulation(species);
     }
 
     /**
@@ -94,36 +69,11 @@ public class FieldStats
     {
         // How many counts are non-zero.
         int nonZero = 0;
-        if(!countsValid) {
-            generateCounts(field);
-        }
-        for(Class key : counters.keySet()) {
-            Counter info = counters.get(key);
-            if(info.getCount() > 0) {
+        for(Species species : Species.all()) {
+            if(field.getPopulation(species) > 0) {
                 nonZero++;
             }
         }
         return nonZero > 1;
     }
-    
-    /**
-     * Generate counts of the number of organism.
-     * These are not kept up to date as organisms
-     * are placed in the field, but only when a request
-     * is made for the information.
-     * @param field The field to generate the stats for.
-     */
-    private void generateCounts(Field field)
-    {
-        reset();
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object actor = field.getObjectAt(row, col);
-                if(actor != null) {
-                    incrementCount(actor.getClass());
-                }
-            }
-        }
-        countsValid = true;
-    }
 }
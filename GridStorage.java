@@ -0,0 +1,469 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Where the data that grows with the number of cells is kept: in
+ * arrays on the heap, or in memory-mapped files in a directory.
+ * Mapped data lives outside the heap, in the operating system's page
+ * cache, so a very large ocean neither needs a heap to match nor
+ * gives the garbage collector more to look after.
+ *
+ * A Field keeps here the species id, occupant handle, valid
+ * directions and free neighbours of every cell, and the bitboard of
+ * each species; an EntityStore keeps the species, age and food
+ * level of every slot, and its list of free slots. The organisms
+ * themselves are objects and stay on the heap, as do the references
+ * to them, but those are held in chunks created as the population
+ * grows, so the heap needed follows the number of organisms rather
+ * than the number of cells.
+ *
+ * The data is handed out as Bytes, Ints and Longs, which hold either
+ * an array or a mapped file, so the code that uses them is the same
+ * either way. An array is used whenever it can be, as it is quicker
+ * to reach than a buffer. A mapped file holds the data of one run
+ * only: it is created empty, replacing any file of the same name,
+ * and is not meant to be read again. A buffer cannot be larger than
+ * 2 GB, so a file is mapped in pieces of PIECE_SIZE bytes; it may
+ * hold as many entries as an int can index.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class GridStorage
+{
+    // Storage in arrays on the heap.
+    public static final GridStorage HEAP = new GridStorage(null);
+    // The number of bits of a byte offset within a piece of a file.
+    private static final int PIECE_BITS = 30;
+    // The size of each piece of a mapped file, except perhaps the last.
+    public static final int PIECE_SIZE = 1 << PIECE_BITS;
+    // Atomic access to the longs of an array.
+    private static final VarHandle ARRAY_LONGS =
+        MethodHandles.arrayElementVarHandle(long[].class);
+    // Atomic access to the longs of a mapped piece.
+    private static final VarHandle BUFFER_LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // The directory of the mapped files, or null for the heap.
+    private final Path directory;
+
+    /**
+     * Create storage in memory-mapped files in the given directory,
+     * which is created if it does not exist.
+     * @param directory The directory, or null to keep data on the heap.
+     */
+    public GridStorage(Path directory)
+    {
+        this.directory = directory;
+    }
+
+    /**
+     * Return the number of cells in a field of the given size.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @return depth * width.
+     * @throws IllegalArgumentException If the cells cannot be indexed
+     *                                  by an int.
+     */
+    public static int cellCount(int depth, int width)
+    {
+        long cells = (long) depth * width;
+        if(depth < 0 || width < 0 || cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A field cannot be " + depth + "x" + width);
+        }
+        return (int) cells;
+    }
+
+    /**
+     * @return Whether data is kept in memory-mapped files.
+     */
+    public boolean isMapped()
+    {
+        return directory != null;
+    }
+
+    /**
+     * Return the given number of bytes, all zero.
+     * @param name The name of the file, if the storage is mapped.
+     * @param count The number of bytes.
+     * @return The bytes.
+     * @throws UncheckedIOException If the file cannot be mapped.
+     */
+    public Bytes bytes(String name, int count)
+    {
+        if(directory == null) {
+            return new Bytes(new byte[count], null, count);
+        }
+        return new Bytes(null, map(name, count), count);
+    }
+
+    /**
+     * Return the given number of ints, all zero.
+     * @param name The name of the file, if the storage is mapped.
+     * @param count The number of ints.
+     * @return The ints.
+     * @throws UncheckedIOException If the file cannot be mapped.
+     */
+    public Ints ints(String name, int count)
+    {
+        if(directory == null) {
+            return new Ints(new int[count], null);
+        }
+        return new Ints(null, map(name, (long) count * Integer.BYTES));
+    }
+
+    /**
+     * Return the given number of longs, all zero.
+     * @param name The name of the file, if the storage is mapped.
+     * @param count The number of longs.
+     * @return The longs.
+     * @throws UncheckedIOException If the file cannot be mapped.
+     */
+    public Longs longs(String name, int count)
+    {
+        if(directory == null) {
+            return new Longs(new long[count], null);
+        }
+        return new Longs(null, map(name, (long) count * Long.BYTES));
+    }
+
+    /**
+     * Map a new file of the given size, in pieces of PIECE_SIZE.
+     * @param name The name of the file within the directory.
+     * @param size The size of the file in bytes.
+     * @return The mapped pieces, in order, in the native byte order.
+     * @throws UncheckedIOException If the file cannot be mapped.
+     */
+    private ByteBuffer[] map(String name, long size)
+    {
+        try {
+            Files.createDirectories(directory);
+            // The mapping stays valid after the channel is closed.
+            try(FileChannel channel = FileChannel.open(directory.resolve(name),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer[] pieces = new ByteBuffer[(int) ((size + PIECE_SIZE - 1) >>> PIECE_BITS)];
+                for(int piece = 0; piece < pieces.length; piece++) {
+                    long start = (long) piece << PIECE_BITS;
+                    pieces[piece] = channel.map(FileChannel.MapMode.READ_WRITE, start,
+                                                Math.min(PIECE_SIZE, size - start))
+                                           .order(ByteOrder.nativeOrder());
+                }
+                return pieces;
+            }
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException("Cannot map " + directory.resolve(name), e);
+        }
+    }
+
+    /**
+     * A fixed number of bytes, in an array or a mapped file.
+     */
+    public static final class Bytes
+    {
+        // The bytes, if they are on the heap.
+        private final byte[] array;
+        // The pieces of the file, if they are mapped.
+        private final ByteBuffer[] pieces;
+        // The number of bytes.
+        private final int size;
+
+        /**
+         * Wrap an array or the pieces of a file.
+         * @param array The array, or null.
+         * @param pieces The pieces, if there is no array.
+         * @param size The number of bytes.
+         */
+        private Bytes(byte[] array, ByteBuffer[] pieces, int size)
+        {
+            this.array = array;
+            this.pieces = pieces;
+            this.size = size;
+        }
+
+        /**
+         * @param index An index.
+         * @return The byte at the index.
+         */
+        public byte get(int index)
+        {
+            if(array != null) {
+                return array[index];
+            }
+            return pieces[index >>> PIECE_BITS].get(index & (PIECE_SIZE - 1));
+        }
+
+        /**
+         * @param index An index.
+         * @param value The byte to store at the index.
+         */
+        public void put(int index, byte value)
+        {
+            if(array != null) {
+                array[index] = value;
+            }
+            else {
+                pieces[index >>> PIECE_BITS].put(index & (PIECE_SIZE - 1), value);
+            }
+        }
+
+        /**
+         * @return The number of bytes.
+         */
+        public int size()
+        {
+            return size;
+        }
+
+        /**
+         * Copy a range of the bytes into an array.
+         * @param index The first index to copy.
+         * @param into The array.
+         * @param offset Where to copy to in the array.
+         * @param length The number of bytes to copy.
+         */
+        public void copyTo(int index, byte[] into, int offset, int length)
+        {
+            if(array != null) {
+                System.arraycopy(array, index, into, offset, length);
+                return;
+            }
+            while(length > 0) {
+                ByteBuffer piece = pieces[index >>> PIECE_BITS];
+                int start = index & (PIECE_SIZE - 1);
+                int part = Math.min(length, piece.capacity() - start);
+                piece.get(start, into, offset, part);
+                index += part;
+                offset += part;
+                length -= part;
+            }
+        }
+
+        /**
+         * Copy a range of the bytes into a buffer.
+         * @param index The first index to copy.
+         * @param into The buffer.
+         * @param offset Where to copy to in the buffer.
+         * @param length The number of bytes to copy.
+         */
+        public void copyTo(int index, ByteBuffer into, int offset, int length)
+        {
+            if(array != null) {
+                into.put(offset, array, index, length);
+                return;
+            }
+            while(length > 0) {
+                ByteBuffer piece = pieces[index >>> PIECE_BITS];
+                int start = index & (PIECE_SIZE - 1);
+                int part = Math.min(length, piece.capacity() - start);
+                into.put(offset, piece, start, part);
+                index += part;
+                offset += part;
+                length -= part;
+            }
+        }
+
+        /**
+         * Copy all of another set of bytes of the same size into these.
+         * @param from The bytes to copy.
+         */
+        public void copyFrom(Bytes from)
+        {
+            byte[] chunk = new byte[Math.min(size, 1 << 16)];
+            for(int index = 0; index < size; index += chunk.length) {
+                int length = Math.min(chunk.length, size - index);
+                from.copyTo(index, chunk, 0, length);
+                putAll(index, chunk, length);
+            }
+        }
+
+        /**
+         * Set every byte to zero.
+         */
+        public void clear()
+        {
+            if(array != null) {
+                Arrays.fill(array, (byte) 0);
+            }
+            else {
+                byte[] zeros = new byte[Math.min(size, 1 << 16)];
+                for(int index = 0; index < size; index += zeros.length) {
+                    putAll(index, zeros, Math.min(zeros.length, size - index));
+                }
+            }
+        }
+
+        /**
+         * Copy the start of an array into a range of the bytes.
+         * @param index The first index to copy to.
+         * @param from The array.
+         * @param length The number of bytes to copy.
+         */
+        private void putAll(int index, byte[] from, int length)
+        {
+            if(array != null) {
+                System.arraycopy(from, 0, array, index, length);
+                return;
+            }
+            int offset = 0;
+            while(length > 0) {
+                ByteBuffer piece = pieces[index >>> PIECE_BITS];
+                int start = index & (PIECE_SIZE - 1);
+                int part = Math.min(length, piece.capacity() - start);
+                piece.put(start, from, offset, part);
+                index += part;
+                offset += part;
+                length -= part;
+            }
+        }
+    }
+
+    /**
+     * A fixed number of ints, in an array or a mapped file.
+     */
+    public static final class Ints
+    {
+        // The number of bits of an index within a piece.
+        private static final int INDEX_BITS = PIECE_BITS - 2;
+
+        // The ints, if they are on the heap.
+        private final int[] array;
+        // The pieces of the file, if they are mapped.
+        private final ByteBuffer[] pieces;
+
+        /**
+         * Wrap an array or the pieces of a file.
+         * @param array The array, or null.
+         * @param pieces The pieces, if there is no array.
+         */
+        private Ints(int[] array, ByteBuffer[] pieces)
+        {
+            this.array = array;
+            this.pieces = pieces;
+        }
+
+        /**
+         * @param index An index.
+         * @return The int at the index.
+         */
+        public int get(int index)
+        {
+            if(array != null) {
+                return array[index];
+            }
+            return pieces[index >>> INDEX_BITS].getInt((index & ((1 << INDEX_BITS) - 1)) << 2);
+        }
+
+        /**
+         * @param index An index.
+         * @param value The int to store at the index.
+         */
+        public void put(int index, int value)
+        {
+            if(array != null) {
+                array[index] = value;
+            }
+            else {
+                pieces[index >>> INDEX_BITS].putInt((index & ((1 << INDEX_BITS) - 1)) << 2, value);
+            }
+        }
+    }
+
+    /**
+     * A fixed number of longs, in an array or a mapped file, whose
+     * bits can be set and cleared atomically.
+     */
+    public static final class Longs
+    {
+        // The number of bits of an index within a piece.
+        private static final int INDEX_BITS = PIECE_BITS - 3;
+
+        // The longs, if they are on the heap.
+        private final long[] array;
+        // The pieces of the file, if they are mapped.
+        private final ByteBuffer[] pieces;
+
+        /**
+         * Wrap an array or the pieces of a file.
+         * @param array The array, or null.
+         * @param pieces The pieces, if there is no array.
+         */
+        private Longs(long[] array, ByteBuffer[] pieces)
+        {
+            this.array = array;
+            this.pieces = pieces;
+        }
+
+        /**
+         * @param index An index.
+         * @return The long at the index.
+         */
+        public long get(int index)
+        {
+            if(array != null) {
+                return array[index];
+            }
+            return pieces[index >>> INDEX_BITS].getLong((index & ((1 << INDEX_BITS) - 1)) << 3);
+        }
+
+        /**
+         * Set some bits of the long at an index, atomically.
+         * @param index An index.
+         * @param bits The bits to set.
+         */
+        public void setBits(int index, long bits)
+        {
+            if(array != null) {
+                ARRAY_LONGS.getAndBitwiseOr(array, index, bits);
+            }
+            else {
+                BUFFER_LONGS.getAndBitwiseOr(pieces[index >>> INDEX_BITS],
+                                             (index & ((1 << INDEX_BITS) - 1)) << 3, bits);
+            }
+        }
+
+        /**
+         * Clear some bits of the long at an index, atomically.
+         * @param index An index.
+         * @param bits The bits to clear.
+         */
+        public void clearBits(int index, long bits)
+        {
+            if(array != null) {
+                ARRAY_LONGS.getAndBitwiseAnd(array, index, ~bits);
+            }
+            else {
+                BUFFER_LONGS.getAndBitwiseAnd(pieces[index >>> INDEX_BITS],
+                                              (index & ((1 << INDEX_BITS) - 1)) << 3, ~bits);
+            }
+        }
+
+        /**
+         * Set every long to zero.
+         */
+        public void clear()
+        {
+            if(array != null) {
+                Arrays.fill(array, 0);
+            }
+            else {
+                byte[] zeros = new byte[1 << 16];
+                for(ByteBuffer piece : pieces) {
+                    for(int offset = 0; offset < piece.capacity(); offset += zeros.length) {
+                        piece.put(offset, zeros, 0, Math.min(zeros.length, piece.capacity() - offset));
+                    }
+                }
+            }
+        }
+    }
+}
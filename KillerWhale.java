@@ -1,174 +0,0 @@
-import java.util.List;
-import java.util.Iterator;
-import java.util.Random;
-
-/**
- * A simple model of a killer whale.
- * Killer whales age, move, eat sea otters, and die.
- * 
- * @author David J. Barnes and Michael Kölling
- * @version 2016.02.29 (2)
- */
-public class KillerWhale extends Organism
-{
-    // Characteristics shared by all killer whales (class variables).
-    
-    // The age at which a killer whale can start to breed.
-    private static final int BREEDING_AGE = 15;
-    // The age to which a killer whale can live.
-    private static final int MAX_AGE = 30;
-    // The likelihood of a killer whale breeding.
-    private static final double BREEDING_PROBABILITY = 0.20;
-    // The maximum number of births.
-    private static final int MAX_LITTER_SIZE = 2;
-    // The food value of a single sea otter. In effect, this is the
-    // number of steps a killer whale can go before it has to eat again.
-    private static final int SEAOTTER_FOOD_VALUE = 8; 
-    // A shared random number generator to control breeding.
-    private static final Random rand = Randomizer.getRandom();
-    
-    // Individual characteristics (instance fields).
-    // The killer whale's age.
-    private int age;
-    // The killer whale's food level, which is increased by eating sea otters.
-    private int foodLevel;
-
-    /**
-     * Create a killer whale. A killer whale can be created as a new born (age zero
-     * and not hungry) or with a random age and food level.
-     * 
-     * @param randomAge If true, the fox will have random age and hunger level.
-     * @param field The field currently occupied.
-     * @param location The location within the field.
-     */
-    public KillerWhale(boolean randomAge, Field field, Location location)
-    {
-        super(field, location);
-        if(randomAge) {
-            age = rand.nextInt(MAX_AGE);
-            foodLevel = rand.nextInt(SEAOTTER_FOOD_VALUE);
-        }
-        else {
-            age = 0;
-            foodLevel = SEAOTTER_FOOD_VALUE;
-        }
-    }
-    
-    /**
-     * This is what the killer whale does most of the time: it hunts for
-     * sea otters. In the process, it might breed, die of hunger,
-     * or die of old age.
-     * @param field The field currently occupied.
-     * @param newKillerWhales A list to return newly born killer whales.
-     */
-    public void act(List<Organism> newKillerWhales)
-    {
-        incrementAge();
-        incrementHunger();
-        if(isAlive()) {
-            giveBirth(newKillerWhales);            
-            // Move towards a source of food if found.
-            Location newLocation = findFood();
-            if(newLocation == null) { 
-                // No food found - try to move to a free location.
-                newLocation = getField().freeAdjacentLocation(getLocation());
-            }
-            // See if it was possible to move.
-            if(newLocation != null) {
-                setLocation(newLocation);
-            }
-            else {
-                // Overcrowding.
-                setDead();
-            }
-        }
-    }
-
-    /**
-     * Increase the age. This could result in the killer whale's death.
-     */
-    private void incrementAge()
-    {
-        age++;
-        if(age > MAX_AGE) {
-            setDead();
-        }
-    }
-    
-    /**
-     * Make this killer whale more hungry. This could result in the killer whale's death.
-     */
-    private void incrementHunger()
-    {
-        foodLevel--;
-        if(foodLevel <= 0) {
-            setDead();
-        }
-    }
-    
-    /**
-     * Look for sea otters adjacent to the current location.
-     * Only the first live sea otter is eaten.
-     * @return Where food was found, or null if it wasn't.
-     */
-    private Location findFood()
-    {
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof SeaOtter) {
-                SeaOtter seaOtter = (SeaOtter) animal;
-                if(seaOtter.isAlive()) { 
-                    seaOtter.setDead();
-                    foodLevel = SEAOTTER_FOOD_VALUE;
-                    return where;
-                }
-            }
-        }
-        return null;
-    }
-    
-    /**
-     * Check whether or not this fox is to give birth at this step.
-     * New births will be made into free adjacent locations.
-     * @param newKillerWhales A list to return newly born killer whales.
-     */
-    private void giveBirth(List<Organism> newKillerWhales)
-    {
-        // New killer whales are born into adjacent locations.
-        // Get a list of adjacent free locations.
-        Field field = getField();
-        List<Location> free = field.getFreeAdjacentLocations(getLocation());
-        int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
-            KillerWhale young = new KillerWhale(false, field, loc);
-            newKillerWhales.add(young);
-        }
-    }
-        
-    /**
-     * Generate a number representing the number of births,
-     * if it can breed.
-     * @return The number of births (may be zero).
-     */
-    private int breed()
-    {
-        int births = 0;
-        if(canBreed() && rand.nextDouble() <= BREEDING_PROBABILITY) {
-            births = rand.nextInt(MAX_LITTER_SIZE) + 1;
-        }
-        return births;
-    }
-
-    /**
-     * A killer whale can breed if it has reached the breeding age.
-     */
-    private boolean canBreed()
-    {
-        return age >= BREEDING_AGE;
-    }
-}
@@ -1,5 +1,8 @@
 /**
  * Represent a location in a rectangular grid.
+ * Locations are immutable. Inside a field positions are held as
+ * packed cell indices, and Field.locationOf provides a Location for
+ * any cell that needs one.
  * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
@@ -7,8 +10,8 @@
 public class Location
 {
     // Row and column positions.
-    private int row;
-    private int col;
+    private final int row;
+    private final int col;
 
     /**
      * Represent a row and column.
@@ -0,0 +1,94 @@
+/**
+ * Walk the cells adjacent to one cell of a field in a random order,
+ * without creating any objects. A cursor is obtained from the
+ * field, and is reused by the field for every later walk, so it
+ * must not be kept once the walk is over.
+ *
+ * The order is taken from a table of every permutation of the
+ * eight directions, so each order is as likely as with a shuffle.
+ * Only the directions the walk was started with are visited: those
+ * that stay within the grid, or those that lead to a free cell.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class NeighbourCursor
+{
+    // The field whose cells are walked.
+    private final Field field;
+    // The cell whose neighbours are walked.
+    private int cell;
+    // The directions to visit, one bit per direction.
+    private int directions;
+    // Where the chosen permutation starts in the permutation table.
+    private int permutation;
+    // How many directions of the permutation have been used.
+    private int position;
+
+    /**
+     * Create a cursor over the given field.
+     * @param field The field whose cells are walked.
+     */
+    NeighbourCursor(Field field)
+    {
+        this.field = field;
+    }
+
+    /**
+     * Start a new walk.
+     * @param cell The cell whose neighbours are walked.
+     * @param directions The directions to visit, one bit per direction.
+     * @param permutation Where the walk's order starts in the permutation table.
+     */
+    void reset(int cell, int directions, int permutation)
+    {
+        this.cell = cell;
+        this.directions = directions;
+        this.permutation = permutation;
+        position = 0;
+    }
+
+    /**
+     * @return true if there are adjacent cells not yet visited.
+     */
+    public boolean hasNext()
+    {
+        while(position < Field.DIRECTIONS) {
+            int direction = Field.permutedDirection(permutation + position);
+            if((directions & (1 << direction)) != 0) {
+                return true;
+            }
+            position++;
+        }
+        return false;
+    }
+
+    /**
+     * Return the next adjacent cell.
+     * Only valid after hasNext has returned true.
+     * @return The index of the next adjacent cell.
+     */
+    public int next()
+    {
+        int direction = Field.permutedDirection(permutation + position);
+        position++;
+        return field.step(cell, direction);
+    }
+
+    /**
+     * Return the next adjacent cell that is empty, skipping
+     * any occupied ones.
+     * @return The index of the next free adjacent cell, or -1
+     *         if there are no more.
+     */
+    public int nextFree()
+    {
+        while(hasNext()) {
+            int next = next();
+            if(field.isFree(next)) {
+                return next;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,227 @@
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks the walks made by NeighbourCursor, and the free-neighbour
+ * masks and species bitboards the field keeps up to date, against a
+ * brute-force look at the cells around each cell. Fields of several
+ * shapes, including single rows and columns, are filled and emptied
+ * by random places, clears and moves, and every cell is checked
+ * after each batch of changes.
+ *
+ * Run main with an optional argument: the number of changes made to
+ * each field, by default 2000. The check fails with an AssertionError.
+ *
+ * @author agent
+ * @version 2026.10.17
+ */
+public class NeighbourCursorTest
+{
+    // The depth and width of each field checked.
+    private static final int[][] SHAPES = {
+        { 1, 1 }, { 1, 9 }, { 9, 1 }, { 2, 2 }, { 7, 5 }, { 33, 70 }
+    };
+    // The number of changes made between checks of every cell.
+    private static final int CHANGES_PER_CHECK = 50;
+    // The number of walks from one cell used to check their order.
+    private static final int ORDER_WALKS = 800;
+
+    /**
+     * Run the check.
+     * @param args The number of changes made to each field.
+     */
+    public static void main(String[] args)
+    {
+        int changes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Randomizer.reset();
+        Random random = new Random(42);
+        for(int[] shape : SHAPES) {
+            Field field = new Field(shape[0], shape[1]);
+            CreaturePool pool = new CreaturePool();
+            checkAll(field);
+            for(int change = 1; change <= changes; change++) {
+                makeChange(field, pool, random);
+                if(change % CHANGES_PER_CHECK == 0) {
+                    checkAll(field);
+                }
+            }
+            checkOrder(field);
+        }
+        System.out.println("NeighbourCursorTest passed");
+    }
+
+    /**
+     * Make one random change to the field: place a creature or
+     * something else, clear a cell, or move an occupant.
+     * @param field The field.
+     * @param pool The pool for the creatures placed.
+     * @param random The source of the changes.
+     */
+    private static void makeChange(Field field, CreaturePool pool, Random random)
+    {
+        int cells = field.getDepth() * field.getWidth();
+        int cell = random.nextInt(cells);
+        switch(random.nextInt(5)) {
+            case 0:
+                Species species = Species.all().get(random.nextInt(Species.count()));
+                new Creature(species, false, field, cell, pool);
+                break;
+            case 1:
+                field.place("rock", cell);
+                break;
+            case 2:
+                field.clear(cell);
+                break;
+            case 3:
+                field.clearEaten(cell);
+                break;
+            default:
+                if(field.getObjectAt(cell) != null) {
+                    int to = random.nextInt(cells);
+                    if(to != cell) {
+                        field.move(cell, to);
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Check the neighbours of every cell of the field.
+     * @param field The field.
+     */
+    private static void checkAll(Field field)
+    {
+        for(int cell = 0; cell < field.getDepth() * field.getWidth(); cell++) {
+            check(field, cell);
+        }
+    }
+
+    /**
+     * Check the walks, free-neighbour mask and bitboards around one
+     * cell against the cells themselves.
+     * @param field The field.
+     * @param cell The cell.
+     */
+    private static void check(Field field, int cell)
+    {
+        Set<Integer> adjacent = adjacentCells(field, cell);
+        Set<Integer> free = new HashSet<>();
+        for(int next : adjacent) {
+            if(field.getSpeciesAt(next) == Field.EMPTY) {
+                free.add(next);
+            }
+        }
+
+        Set<Integer> walked = walk(field.adjacentCells(cell));
+        expect(walked.equals(adjacent), field, cell,
+               "adjacentCells visits " + walked + ", not " + adjacent);
+        walked = walk(field.freeAdjacentCells(cell));
+        expect(walked.equals(free), field, cell,
+               "freeAdjacentCells visits " + walked + ", not " + free);
+        Set<Integer> nextFree = new HashSet<>();
+        NeighbourCursor cursor = field.adjacentCells(cell);
+        for(int next = cursor.nextFree(); next >= 0; next = cursor.nextFree()) {
+            expect(nextFree.add(next), field, cell, "nextFree repeats " + next);
+        }
+        expect(nextFree.equals(free), field, cell, "nextFree finds " + nextFree + ", not " + free);
+        expect(field.hasFreeAdjacentCell(cell) == !free.isEmpty(), field, cell,
+               "hasFreeAdjacentCell is wrong");
+        int chosen = field.freeAdjacentCell(cell);
+        expect(free.isEmpty() ? chosen == -1 : free.contains(chosen), field, cell,
+               "freeAdjacentCell chose " + chosen + " from " + free);
+
+        for(Species species : Species.all()) {
+            boolean present = false;
+            for(int next : adjacent) {
+                present |= field.getSpeciesAt(next) == species.getId();
+            }
+            expect(field.hasAdjacent(cell, 1L << species.getId()) == present, field, cell,
+                   "hasAdjacent is wrong for " + species);
+        }
+    }
+
+    /**
+     * Check that walks from a cell with the most neighbours start in
+     * every direction, so the order is not fixed.
+     * @param field The field.
+     */
+    private static void checkOrder(Field field)
+    {
+        int cell = 0;
+        for(int next = 0; next < field.getDepth() * field.getWidth(); next++) {
+            if(adjacentCells(field, next).size() > adjacentCells(field, cell).size()) {
+                cell = next;
+            }
+        }
+        Set<Integer> adjacent = adjacentCells(field, cell);
+        Set<Integer> firsts = new HashSet<>();
+        for(int walk = 0; walk < ORDER_WALKS; walk++) {
+            NeighbourCursor cursor = field.adjacentCells(cell);
+            if(cursor.hasNext()) {
+                firsts.add(cursor.next());
+            }
+        }
+        expect(firsts.equals(adjacent), field, cell,
+               "walks only start at " + firsts + " of " + adjacent);
+    }
+
+    /**
+     * Find the cells around a cell by looking at every row and
+     * column offset.
+     * @param field The field.
+     * @param cell The cell.
+     * @return The cells within the field next to the cell.
+     */
+    private static Set<Integer> adjacentCells(Field field, int cell)
+    {
+        int row = cell / field.getWidth();
+        int col = cell % field.getWidth();
+        Set<Integer> adjacent = new HashSet<>();
+        for(int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+            for(int colOffset = -1; colOffset <= 1; colOffset++) {
+                int nextRow = row + rowOffset;
+                int nextCol = col + colOffset;
+                if((rowOffset != 0 || colOffset != 0)
+                   && nextRow >= 0 && nextRow < field.getDepth()
+                   && nextCol >= 0 && nextCol < field.getWidth()) {
+                    adjacent.add(field.cellOf(nextRow, nextCol));
+                }
+            }
+        }
+        return adjacent;
+    }
+
+    /**
+     * Walk a cursor to its end.
+     * @param cursor The cursor.
+     * @return The cells visited.
+     */
+    private static Set<Integer> walk(NeighbourCursor cursor)
+    {
+        Set<Integer> visited = new HashSet<>();
+        while(cursor.hasNext()) {
+            int next = cursor.next();
+            if(!visited.add(next)) {
+                throw new AssertionError("A walk visits " + next + " twice");
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Fail the check unless a condition holds.
+     * @param condition The condition.
+     * @param field The field being checked.
+     * @param cell The cell being checked.
+     * @param message What is wrong if the condition does not hold.
+     */
+    private static void expect(boolean condition, Field field, int cell, String message)
+    {
+        if(!condition) {
+            throw new AssertionError("In a " + field.getDepth() + "x" + field.getWidth()
+                                     + " field at cell " + cell + ": " + message);
+        }
+    }
+}
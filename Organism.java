@@ -8,24 +8,59 @@ import java.util.List;
  */
 public abstract class Organism
 {
+    // The organism's species.
+    private final Species species;
     // Whether the organism is alive or not.
     private boolean alive;
     // The organism's field.
     private Field field;
-    // The organism's position in the field.
-    private Location location;
+    // The organism's position in the field, as a cell index
+    // (row * width + col), or NO_CELL once it has died.
+    private int cell;
+    // Whether the organism is dying because it has been eaten.
+    private boolean eaten;
+    
+    // The cell index of an organism that is not in a field.
+    protected static final int NO_CELL = -1;
     
     /**
      * Create a new organism at location in field.
      * 
+     * @param species The organism's species.
      * @param field The field currently occupied.
      * @param location The location within the field.
      */
-    public Organism(Field field, Location location)
+    public Organism(Species species, Field field, Location location)
+    {
+        this(species, field, field.cellOf(location));
+    }
+    
+    /**
+     * Create a new organism in the given cell of the field.
+     * 
+     * @param species The organism's species.
+     * @param field The field currently occupied.
+     * @param cell The cell index within the field.
+     */
+    public Organism(Species species, Field field, int cell)
+    {
+        this.species = species;
+        revive(field, cell);
+    }
+    
+    /**
+     * Bring a dead organism back to life in the given cell, so that
+     * the object can be reused for a new organism of its species.
+     * 
+     * @param field The field to occupy.
+     * @param cell The cell index within the field.
+     */
+    protected void revive(Field field, int cell)
     {
         alive = true;
         this.field = field;
-        setLocation(location);
+        this.cell = NO_CELL;
+        setCell(cell);
     }
     
     /**
@@ -35,6 +70,15 @@ public abstract class Organism
      */
     abstract public void act(List<Organism> newOrganisms);
 
+    /**
+     * Return the species of this organism.
+     * @return The organism's species.
+     */
+    public Species getSpecies()
+    {
+        return species;
+    }
+
     /**
      * Check whether the organism is alive or not.
      * @return true if the organism is still alive.
@@ -51,20 +95,48 @@ public abstract class Organism
     protected void setDead()
     {
         alive = false;
-        if(location != null) {
-            field.clear(location);
-            location = null;
+        if(cell != NO_CELL) {
+            if(eaten) {
+                field.clearEaten(cell);
+            }
+            else {
+                field.clear(cell);
+            }
+            cell = NO_CELL;
             field = null;
         }
     }
 
+    /**
+     * Indicate that the organism has been eaten. It dies as with
+     * setDead, and the field records the death as a kill.
+     */
+    protected void setEaten()
+    {
+        eaten = true;
+        setDead();
+        eaten = false;
+    }
+
     /**
      * Return the organism's location.
      * @return The organism's location.
      */
     protected Location getLocation()
     {
-        return location;
+        if(cell == NO_CELL) {
+            return null;
+        }
+        return field.locationOf(cell);
+    }
+    
+    /**
+     * Return the index of the organism's cell.
+     * @return The cell index, or NO_CELL if the organism is dead.
+     */
+    protected int getCell()
+    {
+        return cell;
     }
     
     /**
@@ -73,11 +145,22 @@ public abstract class Organism
      */
     protected void setLocation(Location newLocation)
     {
-        if(location != null) {
-            field.clear(location);
+        setCell(field.cellOf(newLocation));
+    }
+    
+    /**
+     * Place the organism in the given cell of its field.
+     * @param newCell The index of the organism's new cell.
+     */
+    protected void setCell(int newCell)
+    {
+        if(cell != NO_CELL) {
+            field.move(cell, newCell);
+        }
+        else {
+            field.place(this, newCell);
         }
-        location = newLocation;
-        field.place(this, newLocation);
+        cell = newCell;
     }
     
     /**
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The organisms tracked by a simulation, in the order in which they
+ * act. Organisms that die stay in the registry as tombstones until
+ * the next call to compact, which removes all of them in a single
+ * pass. Removing an organism therefore never shifts the rest of the
+ * registry, and a step costs time in proportion to the population
+ * however many organisms die in it.
+ *
+ * An organism keeps its index until the registry is compacted, so
+ * indexes can be used to refer to organisms within a step.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class OrganismRegistry
+{
+    // The initial capacity of a registry.
+    private static final int INITIAL_CAPACITY = 256;
+
+    // The organisms, in order. Entries from size onwards are null.
+    private Organism[] organisms;
+    // The number of entries in use, including tombstones.
+    private int size;
+
+    /**
+     * Create an empty registry.
+     */
+    public OrganismRegistry()
+    {
+        organisms = new Organism[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Add an organism at the end of the registry.
+     * @param organism The organism to add.
+     * @return The organism's index.
+     */
+    public int add(Organism organism)
+    {
+        if(size == organisms.length) {
+            organisms = Arrays.copyOf(organisms, size * 2);
+        }
+        organisms[size] = organism;
+        return size++;
+    }
+
+    /**
+     * Add several organisms at the end of the registry, in order.
+     * @param newOrganisms The organisms to add.
+     */
+    public void addAll(List<Organism> newOrganisms)
+    {
+        for(Organism organism : newOrganisms) {
+            add(organism);
+        }
+    }
+
+    /**
+     * Return the organism with the given index. It may be dead.
+     * @param index The index, less than size().
+     * @return The organism.
+     */
+    public Organism get(int index)
+    {
+        return organisms[index];
+    }
+
+    /**
+     * Return the number of entries, including any dead organisms
+     * not yet removed by compact.
+     * @return The number of entries.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Remove every dead organism, keeping the others in order.
+     * This changes the indexes of the survivors.
+     * @return The number of organisms left.
+     */
+    public int compact()
+    {
+        return compact(null);
+    }
+
+    /**
+     * Remove every dead organism, keeping the others in order, and
+     * release the dead to a pool for reuse. This changes the indexes
+     * of the survivors.
+     * @param pool The pool to receive the dead, or null.
+     * @return The number of organisms left.
+     */
+    public int compact(CreaturePool pool)
+    {
+        int kept = 0;
+        for(int i = 0; i < size; i++) {
+            Organism organism = organisms[i];
+            if(organism.isAlive()) {
+                organisms[kept++] = organism;
+            }
+            else if(pool != null) {
+                pool.release(organism);
+            }
+        }
+        Arrays.fill(organisms, kept, size, null);
+        size = kept;
+        return kept;
+    }
+
+    /**
+     * Remove every organism.
+     */
+    public void clear()
+    {
+        Arrays.fill(organisms, 0, size, null);
+        size = 0;
+    }
+}
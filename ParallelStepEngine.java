@@ -0,0 +1,286 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Run simulation steps on several threads. The field is split into
+ * square tiles, and each tile is given one of four colours so that
+ * tiles of the same colour never touch:
+ *
+ *     0 1 0 1 ...
+ *     2 3 2 3 ...
+ *     0 1 0 1 ...
+ *
+ * A step runs in four phases, one per colour. Within a phase the
+ * organisms of each tile act on a ForkJoinPool, in parallel with the
+ * other tiles of that colour. An organism only reads or changes cells
+ * next to its own, and the free-neighbour masks of the cells next to
+ * those, so two organisms in same-coloured tiles can never reach the
+ * same cell. Moves, predation and births therefore never race across
+ * tile borders.
+ *
+ * Each organism acts once per step, in the tile it occupied when the
+ * step began. Its random numbers come from a stream selected by the
+ * step and its cell, and the tiles of a phase cannot affect each
+ * other, so the outcome of a step does not depend on the number of
+ * threads or on how they are scheduled. With no threads at all the
+ * phases run on the calling thread, tile by tile in the same order,
+ * so a sequential step gives the same outcome as a parallel one.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class ParallelStepEngine
+{
+    // The default width and depth of a tile, in cells.
+    public static final int DEFAULT_TILE_SIZE = 64;
+    // The smallest tile that keeps same-coloured tiles far enough
+    // apart: each organism changes cells one beyond its own, and so
+    // the free-neighbour masks of cells two beyond its own.
+    private static final int MIN_TILE_SIZE = 4;
+    // The number of colours, and so of phases per step.
+    private static final int COLOURS = 4;
+    // The number of tiles a task handles itself rather than splitting.
+    private static final int TILES_PER_TASK = 1;
+
+    // The field the organisms live in.
+    private final Field field;
+    // The width and depth of a tile.
+    private final int tileSize;
+    // The number of tiles across and down the field.
+    private final int tilesAcross, tilesDown;
+    // The pool that runs the tiles of each phase, or null if they
+    // are run on the calling thread.
+    private final ForkJoinPool pool;
+    // The organisms that start each step in each tile, in the
+    // order they appear in the simulator's registry.
+    private final List<List<Organism>> tileOrganisms;
+    // The organisms born in each tile during the current step.
+    private final List<List<Organism>> tileNewborns;
+    // The organisms that were already dead when the step began,
+    // such as those whose deaths the DeathWheel delivered.
+    private final List<Organism> deadAtStart;
+    // The tiles of each colour.
+    private final int[][] tilesByColour;
+    // The step being run.
+    private int step;
+
+    /**
+     * Create an engine for the given field with the default tile size.
+     * @param field The field the organisms live in.
+     * @param threads The number of threads to use, or 0 to run the
+     *                tiles on the calling thread.
+     */
+    public ParallelStepEngine(Field field, int threads)
+    {
+        this(field, threads, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Create an engine for the given field.
+     * @param field The field the organisms live in.
+     * @param threads The number of threads to use, or 0 to run the
+     *                tiles on the calling thread.
+     * @param tileSize The width and depth of a tile, in cells.
+     */
+    public ParallelStepEngine(Field field, int threads, int tileSize)
+    {
+        if(threads < 0) {
+            throw new IllegalArgumentException("The number of threads cannot be negative: "
+                                               + threads);
+        }
+        if(tileSize < MIN_TILE_SIZE) {
+            throw new IllegalArgumentException("Tiles must be at least " + MIN_TILE_SIZE
+                                               + " cells wide: " + tileSize);
+        }
+        this.field = field;
+        this.tileSize = tileSize;
+        tilesAcross = (field.getWidth() + tileSize - 1) / tileSize;
+        tilesDown = (field.getDepth() + tileSize - 1) / tileSize;
+        pool = threads > 0 ? new ForkJoinPool(threads) : null;
+
+        int tiles = tilesAcross * tilesDown;
+        tileOrganisms = new ArrayList<>(tiles);
+        tileNewborns = new ArrayList<>(tiles);
+        deadAtStart = new ArrayList<>();
+        for(int tile = 0; tile < tiles; tile++) {
+            tileOrganisms.add(new ArrayList<>());
+            tileNewborns.add(new ArrayList<>());
+        }
+
+        int[] perColour = new int[COLOURS];
+        for(int tile = 0; tile < tiles; tile++) {
+            perColour[colourOf(tile)]++;
+        }
+        tilesByColour = new int[COLOURS][];
+        for(int colour = 0; colour < COLOURS; colour++) {
+            tilesByColour[colour] = new int[perColour[colour]];
+            perColour[colour] = 0;
+        }
+        for(int tile = 0; tile < tiles; tile++) {
+            int colour = colourOf(tile);
+            tilesByColour[colour][perColour[colour]++] = tile;
+        }
+    }
+
+    /**
+     * Let every organism act once. The registry is refilled tile by
+     * tile, followed by the newborns; organisms that died, including
+     * those already dead when the step began, are left in it for the
+     * caller to remove with compact.
+     * @param organisms The organisms in the field.
+     * @param step The number of the step being run.
+     */
+    public void simulateOneStep(OrganismRegistry organisms, int step)
+    {
+        this.step = step;
+        // Sort the organisms into the tiles they start in.
+        for(int i = 0; i < organisms.size(); i++) {
+            Organism organism = organisms.get(i);
+            if(organism.isAlive()) {
+                tileOrganisms.get(tileOf(organism.getCell())).add(organism);
+            }
+            else {
+                deadAtStart.add(organism);
+            }
+        }
+
+        for(int colour = 0; colour < COLOURS; colour++) {
+            int[] tiles = tilesByColour[colour];
+            // Keep the changes of each phase apart from those of others.
+            field.phaseCompleted();
+            if(pool != null) {
+                pool.invoke(new PhaseTask(tiles, 0, tiles.length));
+            }
+            else {
+                for(int tile : tiles) {
+                    actTile(tile);
+                }
+            }
+        }
+        field.phaseCompleted();
+
+        // Gather the residents and the newborns, tile by tile.
+        organisms.clear();
+        for(int tile = 0; tile < tileOrganisms.size(); tile++) {
+            List<Organism> residents = tileOrganisms.get(tile);
+            for(Organism organism : residents) {
+                organisms.add(organism);
+            }
+            residents.clear();
+        }
+        for(List<Organism> newborns : tileNewborns) {
+            organisms.addAll(newborns);
+            newborns.clear();
+        }
+        // Keep the dead, so that compact hands them back to the pool.
+        organisms.addAll(deadAtStart);
+        deadAtStart.clear();
+    }
+
+    /**
+     * Stop the engine's threads. The engine cannot be used afterwards.
+     */
+    public void shutdown()
+    {
+        if(pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return The number of threads the engine uses, or 0 if it runs
+     *         on the calling thread.
+     */
+    public int getThreads()
+    {
+        return pool != null ? pool.getParallelism() : 0;
+    }
+
+    /**
+     * Return the tile containing the given cell.
+     * @param cell The cell index, row * width + col.
+     * @return The tile index.
+     */
+    private int tileOf(int cell)
+    {
+        int row = cell / field.getWidth();
+        int col = cell % field.getWidth();
+        return (row / tileSize) * tilesAcross + col / tileSize;
+    }
+
+    /**
+     * Return the colour of the given tile.
+     * @param tile The tile index.
+     * @return The colour, between 0 and COLOURS - 1.
+     */
+    private int colourOf(int tile)
+    {
+        int tileRow = tile / tilesAcross;
+        int tileCol = tile % tilesAcross;
+        return (tileRow % 2) * 2 + tileCol % 2;
+    }
+
+    /**
+     * Let the organisms of one tile act, in order.
+     * @param tile The tile index.
+     */
+    private void actTile(int tile)
+    {
+        List<Organism> newborns = tileNewborns.get(tile);
+        for(Organism organism : tileOrganisms.get(tile)) {
+            // Skip any killed earlier in the step.
+            if(organism.isAlive()) {
+                Randomizer.select(step, organism.getCell());
+                organism.act(newborns);
+            }
+        }
+    }
+
+    /**
+     * Run a range of the tiles of one colour, splitting the range
+     * between threads.
+     */
+    private class PhaseTask extends RecursiveAction
+    {
+        // The version of the serialized form, which RecursiveAction
+        // defines.
+        private static final long serialVersionUID = 1L;
+
+        // The tiles of the phase's colour.
+        private final int[] tiles;
+        // The range of entries in tiles handled by this task.
+        private final int from, to;
+
+        /**
+         * Create a task for part of a phase.
+         * @param tiles The tiles of the phase's colour.
+         * @param from The first entry to run.
+         * @param to One past the last entry to run.
+         */
+        PhaseTask(int[] tiles, int from, int to)
+        {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Run the tiles, or split them between two subtasks.
+         */
+        protected void compute()
+        {
+            if(to - from <= TILES_PER_TASK) {
+                for(int i = from; i < to; i++) {
+                    actTile(tiles[i]);
+                }
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PhaseTask(tiles, from, middle),
+                          new PhaseTask(tiles, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.Random;
+
+/**
+ * A fast, unsynchronized random number generator whose output is
+ * determined entirely by a (seed, step, key) triple. It is a
+ * SplitMix64 generator: the n-th value of a stream is a mix of its
+ * starting state plus n times a fixed increment.
+ *
+ * Streams are not shared between threads. Each thread reseeds its own
+ * stream before each piece of work, so the numbers drawn depend only
+ * on what is being worked on, never on which thread does it or in
+ * what order threads run. See Randomizer.select.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class RandomStream extends Random
+{
+    // The version of the serialized form, which Random defines.
+    private static final long serialVersionUID = 1L;
+    // The increment added to the state for each value drawn.
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    
+    // The current state of the stream.
+    private long state;
+
+    /**
+     * Create a stream. It should be reseeded before use.
+     */
+    public RandomStream()
+    {
+        super(0);
+    }
+
+    /**
+     * Start the stream for one piece of work.
+     * @param seed The seed of the whole run.
+     * @param step The simulation step.
+     * @param key What is being worked on, such as an organism's cell.
+     */
+    public void reseed(long seed, long step, long key)
+    {
+        state = mix(mix(mix(seed) ^ step) ^ key);
+    }
+
+    /**
+     * Start the stream from a single seed.
+     * @param seed The seed.
+     */
+    public void setSeed(long seed)
+    {
+        state = mix(seed);
+    }
+
+    /**
+     * @return The next 64 random bits.
+     */
+    public long nextLong()
+    {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * @return A random double between 0 (inclusive) and 1 (exclusive).
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Generate the next random bits, as required by Random.
+     * @param bits The number of bits wanted.
+     * @return The bits, in the low end of an int.
+     */
+    protected int next(int bits)
+    {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    /**
+     * Scramble the bits of a value (the SplitMix64 finaliser).
+     * @param z The value to scramble.
+     * @return The scrambled value.
+     */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,52 +1,96 @@
-import java.util.Random;
-
-/**
- * Provide control over the randomization of the simulation. By using the shared, fixed-seed 
- * randomizer, repeated runs will perform exactly the same (which helps with testing). Set 
- * 'useShared' to false to get different random behaviour every time.
- * 
- * @author David J. Barnes and Michael Kölling
- * @version 2016.02.29
- */
-public class Randomizer
-{
-    // The default seed for control of randomization.
-    private static final int SEED = 1111;
-    // A shared Random object, if required.
-    private static final Random rand = new Random(SEED);
-    // Determine whether a shared random generator is to be provided.
-    private static final boolean useShared = true;
-
-    /**
-     * Constructor for objects of class Randomizer
-     */
-    public Randomizer()
-    {
-    }
-
-    /**
-     * Provide a random generator.
-     * @return A random object.
-     */
-    public static Random getRandom()
-    {
-        if(useShared) {
-            return rand;
-        }
-        else {
-            return new Random();
-        }
-    }
-    
-    /**
-     * Reset the randomization.
-     * This will have no effect if randomization is not through
-     * a shared Random generator.
-     */
-    public static void reset()
-    {
-        if(useShared) {
-            rand.setSeed(SEED);
-        }
-    }
-}
+import java.util.Random;
+
+/**
+ * Provide control over the randomization of the simulation. By using a fixed seed,
+ * repeated runs will perform exactly the same (which helps with testing). Set 
+ * 'useShared' to false to get different random behaviour every time.
+ * 
+ * Every thread has its own RandomStream. Before an organism acts, the simulation
+ * calls select with the step and the organism's cell, and everything random the
+ * organism then does, including the order in which it looks at its neighbours,
+ * comes from that stream. A run is therefore reproducible bit for bit, whichever
+ * thread acts for which organism.
+ * 
+ * @author David J. Barnes and Michael Kölling
+ * @version 2016.02.29
+ */
+public class Randomizer
+{
+    // The default seed for control of randomization.
+    private static final int SEED = 1111;
+    // Determine whether the fixed seed is to be used.
+    private static final boolean useShared = true;
+    // The seed of the current run.
+    private static long seed = useShared ? SEED : new Random().nextLong();
+    // Each thread's random stream.
+    private static final ThreadLocal<RandomStream> streams =
+        ThreadLocal.withInitial(Randomizer::newStream);
+
+    /**
+     * Constructor for objects of class Randomizer
+     */
+    public Randomizer()
+    {
+    }
+
+    /**
+     * Provide a random generator: the calling thread's current stream.
+     * It must not be passed to another thread.
+     * @return A random object.
+     */
+    public static Random getRandom()
+    {
+        return streams.get();
+    }
+    
+    /**
+     * Start the calling thread's stream for a piece of work, such as
+     * one organism acting in one step.
+     * @param step The simulation step.
+     * @param key What is being worked on, such as an organism's cell.
+     * @return The thread's stream, ready for use.
+     */
+    public static Random select(long step, long key)
+    {
+        RandomStream stream = streams.get();
+        stream.reseed(seed, step, key);
+        return stream;
+    }
+    
+    /**
+     * @return The seed of the run.
+     */
+    public static long getSeed()
+    {
+        return seed;
+    }
+    
+    /**
+     * Change the seed of the run.
+     * @param newSeed The new seed.
+     */
+    public static void setSeed(long newSeed)
+    {
+        seed = newSeed;
+        reset();
+    }
+    
+    /**
+     * Reset the randomization of the calling thread's stream.
+     */
+    public static void reset()
+    {
+        streams.get().reseed(seed, 0, 0);
+    }
+    
+    /**
+     * Create a stream for a new thread.
+     * @return A stream starting from the run's seed.
+     */
+    private static RandomStream newStream()
+    {
+        RandomStream stream = new RandomStream();
+        stream.reseed(seed, 0, 0);
+        return stream;
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Publishes the state of a field at the end of each step in a
+ * memory-mapped file, so that viewers and other tools in separate
+ * processes on the same machine can follow a run by mapping the file
+ * with SharedGridReader. Attach it with Simulator.addObserver.
+ *
+ * The file starts with a header: MAGIC, VERSION, a sequence number,
+ * the step, the depth and width of the field, the number of species,
+ * the offset of the grid and the population of each species, indexed
+ * by species id. A table of the species follows, each the colour, the
+ * length of the name in bytes (a short) and the name in UTF-8. The
+ * grid, the species id of every cell in row order, starts at the next
+ * multiple of 64 bytes.
+ *
+ * The sequence number works as a seqlock. It is made odd before the
+ * step, grid and populations are written and even again afterwards,
+ * so a reader that sees the same even number before and after reading
+ * knows that what it read belongs to one step. Readers never write to
+ * the file, so they cannot hold up the simulation. Only the tiles of
+ * the field that have changed since the last step are written.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class SharedGrid implements SimulatorObserver
+{
+    // The first four bytes of the file: "SWSG".
+    public static final int MAGIC = 0x53575347;
+    // The version of the layout of the file.
+    public static final int VERSION = 1;
+    // The offsets of the fields of the header.
+    static final int SEQUENCE = 8;
+    static final int STEP = 16;
+    static final int DEPTH = 20;
+    static final int WIDTH = 24;
+    static final int SPECIES_COUNT = 28;
+    static final int GRID_OFFSET = 32;
+    static final int POPULATIONS = 36;
+    // Ordered access to the sequence number in the file.
+    static final VarHandle SEQUENCE_HANDLE =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // The mapped file.
+    private final MappedByteBuffer map;
+    // The depth and width of the field.
+    private final int depth, width;
+    // The offset of the grid in the file.
+    private final int gridOffset;
+    // The sequence number last written.
+    private long sequence;
+    // The epoch of the field when it was last published, or -1 if
+    // it has not been.
+    private int epoch;
+    // The field last published.
+    private Field source;
+
+    /**
+     * Create the shared file for a field of the given size, replacing
+     * any file of the same name.
+     * @param file The file.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @throws IOException If the file cannot be created or mapped.
+     * @throws IllegalArgumentException If the file would be too big to
+     *                                  map as one buffer.
+     */
+    public SharedGrid(Path file, int depth, int width) throws IOException
+    {
+        int cells = GridStorage.cellCount(depth, width);
+        this.depth = depth;
+        this.width = width;
+        int tableBytes = 0;
+        for(Species species : Species.all()) {
+            tableBytes += Integer.BYTES + Short.BYTES
+                          + species.getName().getBytes(StandardCharsets.UTF_8).length;
+        }
+        int tableOffset = POPULATIONS + (Species.count() + 1) * Integer.BYTES;
+        gridOffset = (tableOffset + tableBytes + 63) / 64 * 64;
+        // The grid is mapped, and its cells addressed, with ints.
+        if(cells > Integer.MAX_VALUE - gridOffset) {
+            throw new IllegalArgumentException("A shared grid cannot hold a " + depth + "x" + width
+                                               + " field: the file would be over 2 GB");
+        }
+        // The mapping stays valid after the channel is closed.
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, gridOffset + cells);
+        }
+        map.putInt(0, MAGIC);
+        map.putInt(4, VERSION);
+        map.putInt(DEPTH, depth);
+        map.putInt(WIDTH, width);
+        map.putInt(SPECIES_COUNT, Species.count());
+        map.putInt(GRID_OFFSET, gridOffset);
+        map.position(tableOffset);
+        for(Species species : Species.all()) {
+            byte[] name = species.getName().getBytes(StandardCharsets.UTF_8);
+            map.putInt(species.getColour());
+            map.putShort((short) name.length);
+            map.put(name);
+        }
+        epoch = -1;
+    }
+
+    /**
+     * Publish the state of the field at the end of a step.
+     * @param step The step that has been completed.
+     * @param field The field, which must be the size given when the
+     *              file was created.
+     */
+    public void stepCompleted(int step, Field field)
+    {
+        if(field.getDepth() != depth || field.getWidth() != width) {
+            throw new IllegalArgumentException("The field is " + field.getDepth() + "x"
+                                               + field.getWidth() + ", not " + depth + "x" + width);
+        }
+        sequence++;
+        SEQUENCE_HANDLE.setOpaque(map, SEQUENCE, sequence);
+        VarHandle.storeStoreFence();
+
+        map.putInt(STEP, step);
+        for(Species species : Species.all()) {
+            map.putInt(POPULATIONS + species.getId() * Integer.BYTES, field.getPopulation(species));
+        }
+        if(field != source || countChangedTiles(field) * 2 > field.getTileCount()) {
+            // One copy of the whole grid is quicker than many pieces.
+            field.copySpecies(map, gridOffset);
+        }
+        else {
+            copyChangedTiles(field);
+        }
+        source = field;
+        epoch = field.getEpoch();
+
+        sequence++;
+        SEQUENCE_HANDLE.setRelease(map, SEQUENCE, sequence);
+    }
+
+    /**
+     * @param field The field last published.
+     * @return The number of its tiles that have changed since then.
+     */
+    private int countChangedTiles(Field field)
+    {
+        int count = 0;
+        for(int tile = 0; tile < field.getTileCount(); tile++) {
+            if(field.isTileChangedSince(tile, epoch)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copy the tiles that have changed since the field was last
+     * published, taking each run of tiles next to each other along a
+     * row together.
+     * @param field The field last published.
+     */
+    private void copyChangedTiles(Field field)
+    {
+        int tileCols = field.getTileCols();
+        int tiles = field.getTileCount();
+        int first = 0;
+        while(first < tiles) {
+            if(field.isTileChangedSince(first, epoch)) {
+                int end = first + 1;
+                while(end < tiles && end % tileCols != 0 && field.isTileChangedSince(end, epoch)) {
+                    end++;
+                }
+                field.copySpecies(map, gridOffset, first, end);
+                first = end;
+            }
+            else {
+                first++;
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Follows a run from another process through the file published by
+ * SharedGrid. The file is mapped read-only, so cells and counts are
+ * read straight from the memory the simulation writes to, without
+ * copying, and nothing a reader does can slow the simulation down.
+ *
+ * The simulation may publish a new step while a reader is part way
+ * through, so reads are made between beginRead and validate:
+ *
+ *     long sequence;
+ *     do {
+ *         sequence = reader.beginRead();
+ *         ... getStep, getPopulation, getSpeciesAt ...
+ *     } while(!reader.validate(sequence));
+ *
+ * If validate returns false the values read may be from different
+ * steps and must be read again. The read method does this for a
+ * copy of the whole grid.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class SharedGridReader
+{
+    // The mapped file.
+    private final MappedByteBuffer map;
+    // The depth and width of the field.
+    private final int depth, width;
+    // The number of species.
+    private final int speciesCount;
+    // The offset of the grid in the file.
+    private final int gridOffset;
+    // The name of each species, indexed by species id.
+    private final String[] names;
+    // The colour of each species, indexed by species id.
+    private final int[] colours;
+
+    /**
+     * Map a file published by SharedGrid.
+     * @param file The file.
+     * @throws IOException If the file cannot be mapped, or was not
+     *                     written by SharedGrid.
+     */
+    public SharedGridReader(Path file) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(map.capacity() < SharedGrid.POPULATIONS || map.getInt(0) != SharedGrid.MAGIC) {
+            throw new IOException(file + " is not a shared grid");
+        }
+        if(map.getInt(4) != SharedGrid.VERSION) {
+            throw new IOException(file + " has version " + map.getInt(4)
+                                  + ", not " + SharedGrid.VERSION);
+        }
+        depth = map.getInt(SharedGrid.DEPTH);
+        width = map.getInt(SharedGrid.WIDTH);
+        speciesCount = map.getInt(SharedGrid.SPECIES_COUNT);
+        gridOffset = map.getInt(SharedGrid.GRID_OFFSET);
+        names = new String[speciesCount + 1];
+        colours = new int[speciesCount + 1];
+        ByteBuffer table = map.duplicate();
+        table.position(SharedGrid.POPULATIONS + (speciesCount + 1) * Integer.BYTES);
+        for(int id = 1; id <= speciesCount; id++) {
+            colours[id] = table.getInt();
+            byte[] name = new byte[table.getShort()];
+            table.get(name);
+            names[id] = new String(name, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Start reading a published step. Waits while a step is being
+     * written.
+     * @return The sequence number to pass to validate.
+     */
+    public long beginRead()
+    {
+        long sequence = (long) SharedGrid.SEQUENCE_HANDLE.getAcquire(map, SharedGrid.SEQUENCE);
+        while((sequence & 1) != 0) {
+            Thread.onSpinWait();
+            sequence = (long) SharedGrid.SEQUENCE_HANDLE.getAcquire(map, SharedGrid.SEQUENCE);
+        }
+        return sequence;
+    }
+
+    /**
+     * Check that nothing has been published since beginRead.
+     * @param sequence The number returned by beginRead.
+     * @return true if everything read since then belongs to one step.
+     */
+    public boolean validate(long sequence)
+    {
+        VarHandle.loadLoadFence();
+        return (long) SharedGrid.SEQUENCE_HANDLE.getOpaque(map, SharedGrid.SEQUENCE) == sequence;
+    }
+
+    /**
+     * Copy the grid and populations of one published step.
+     * @param grid An array of getDepth() * getWidth() entries to
+     *             receive the species id of every cell.
+     * @param populations An array of getSpeciesCount() + 1 entries to
+     *                    receive the population of each species, by id.
+     * @return The step.
+     */
+    public int read(byte[] grid, int[] populations)
+    {
+        while(true) {
+            long sequence = beginRead();
+            int step = getStep();
+            for(int id = 1; id <= speciesCount; id++) {
+                populations[id] = getPopulation(id);
+            }
+            map.get(gridOffset, grid, 0, depth * width);
+            if(validate(sequence)) {
+                return step;
+            }
+        }
+    }
+
+    /**
+     * @return The step last published.
+     */
+    public int getStep()
+    {
+        return map.getInt(SharedGrid.STEP);
+    }
+
+    /**
+     * Return the population of a species at the step last published.
+     * @param id The species id, from 1 to getSpeciesCount().
+     * @return The number of organisms of that species.
+     */
+    public int getPopulation(int id)
+    {
+        return map.getInt(SharedGrid.POPULATIONS + id * Integer.BYTES);
+    }
+
+    /**
+     * Return the species id of a cell at the step last published.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The species id, Field.EMPTY or Field.OTHER.
+     */
+    public byte getSpeciesAt(int row, int col)
+    {
+        return map.get(gridOffset + row * width + col);
+    }
+
+    /**
+     * @return The depth of the field.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return The width of the field.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * @return The number of species.
+     */
+    public int getSpeciesCount()
+    {
+        return speciesCount;
+    }
+
+    /**
+     * @param id A species id, from 1 to getSpeciesCount().
+     * @return The name of the species.
+     */
+    public String getSpeciesName(int id)
+    {
+        return names[id];
+    }
+
+    /**
+     * @param id A species id, from 1 to getSpeciesCount().
+     * @return The colour of the species, as an RGB value.
+     */
+    public int getColour(int id)
+    {
+        return colours[id];
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Measure how long a simulation step takes on large fields.
+ * The benchmark runs a headless Simulator, so no view is
+ * attached and there is no delay between steps.
+ *
+ * Each size is run on the calling thread and with the
+ * ParallelStepEngine, each without and with creature pooling (see
+ * Simulator.setPooling), and the speedup of the parallel run is
+ * shown, together with the garbage collections per thousand steps
+ * of every run. The collections are few, so enough steps must be
+ * timed for that figure to mean much.
+ * Before that, the throughput of the per-thread RandomStream is
+ * compared with a single java.util.Random shared by all threads.
+ *
+ * Run main with optional arguments: the number of timed steps,
+ * followed by the field sizes to try (each is used for both
+ * depth and width). The defaults are 200 steps on 1000x1000
+ * and 4000x4000 fields. The number of threads for the parallel
+ * run is taken from the "threads" system property, and defaults
+ * to the number of processors.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class SimulationBenchmark
+{
+    // The number of untimed steps run before measuring.
+    private static final int WARMUP_STEPS = 3;
+
+    /**
+     * Run the benchmark.
+     * @param args The number of steps, then the field sizes.
+     */
+    public static void main(String[] args)
+    {
+        int steps = 200;
+        int[] sizes = { 1000, 4000 };
+        if(args.length > 0) {
+            steps = Integer.parseInt(args[0]);
+        }
+        if(args.length > 1) {
+            sizes = new int[args.length - 1];
+            for(int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        int threads = Integer.getInteger("threads",
+                                         Runtime.getRuntime().availableProcessors());
+        benchmarkRandom(threads);
+        for(int size : sizes) {
+            long sequential = run(size, size, steps, 0, false);
+            run(size, size, steps, 0, true);
+            long parallel = run(size, size, steps, threads, false);
+            run(size, size, steps, threads, true);
+            System.out.printf("%dx%d: speedup with %d threads %.2fx%n",
+                              size, size, threads, (double) sequential / parallel);
+        }
+    }
+
+    /**
+     * Compare the rate at which random numbers can be drawn from one
+     * shared java.util.Random and from each thread's own stream, with
+     * a reseed for every few draws as when organisms act.
+     * @param threads The number of threads drawing numbers.
+     */
+    public static void benchmarkRandom(int threads)
+    {
+        Random shared = new Random(1111);
+        double sharedRate = drawRate(threads, false, () -> shared);
+        double streamRate = drawRate(threads, true, () -> Randomizer.getRandom());
+        System.out.printf("random numbers, %d threads: shared Random %.1f M/s, "
+                          + "streams %.1f M/s%n", threads, sharedRate, streamRate);
+    }
+
+    /**
+     * Measure how fast several threads can draw random numbers.
+     * @param threads The number of threads drawing numbers.
+     * @param reseed Whether to select a new stream every few draws.
+     * @param source Gives each thread the generator to draw from.
+     * @return The total rate, in millions of numbers per second.
+     */
+    private static double drawRate(int threads, boolean reseed, Supplier<Random> source)
+    {
+        final int keys = 1_000_000;
+        final int drawsPerKey = 4;
+        long[] sums = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++) {
+            final int worker = t;
+            workers[t] = new Thread(() -> {
+                Random rand = source.get();
+                long sum = 0;
+                for(int key = 0; key < keys; key++) {
+                    if(reseed) {
+                        Randomizer.select(0, worker * keys + key);
+                    }
+                    for(int draw = 0; draw < drawsPerKey; draw++) {
+                        sum += rand.nextInt(100);
+                    }
+                }
+                // Keep the draws from being optimised away.
+                sums[worker] = sum;
+            });
+        }
+        long start = System.nanoTime();
+        for(Thread worker : workers) {
+            worker.start();
+        }
+        for(Thread worker : workers) {
+            try {
+                worker.join();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long time = System.nanoTime() - start;
+        return (double) threads * keys * drawsPerKey / time * 1000;
+    }
+
+    /**
+     * Populate a field of the given size and time a number of steps.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param steps The number of steps to time.
+     * @param threads The number of threads for the ParallelStepEngine,
+     *                or 0 to step on the calling thread.
+     * @param pooling Whether to reuse dead creatures.
+     * @return The average time of a step, in nanoseconds.
+     */
+    public static long run(int depth, int width, int steps, int threads, boolean pooling)
+    {
+        Randomizer.reset();
+        long start = System.nanoTime();
+        Simulator simulator = new Simulator(depth, width, false);
+        long populateTime = System.nanoTime() - start;
+
+        simulator.setParallelism(threads);
+        simulator.setPooling(pooling);
+        for(int step = 0; step < WARMUP_STEPS; step++) {
+            simulator.simulateOneStep();
+        }
+        long collections = BenchmarkSuite.collectionCount();
+        start = System.nanoTime();
+        for(int step = 0; step < steps; step++) {
+            simulator.simulateOneStep();
+        }
+        long stepTime = (System.nanoTime() - start) / steps;
+        collections = BenchmarkSuite.collectionCount() - collections;
+        simulator.setParallelism(0);
+
+        System.out.printf("%dx%d, %s, %s: populate %.1f ms, step %.1f ms, %d organisms, "
+                          + "%.1f GCs per 1000 steps (%d in %d)%n",
+                          depth, width,
+                          threads > 0 ? threads + " threads" : "sequential",
+                          pooling ? "pooled" : "unpooled",
+                          populateTime / 1e6, stepTime / 1e6,
+                          simulator.getOrganismCount(),
+                          collections * 1000.0 / steps, collections, steps);
+        return stepTime;
+    }
+}
@@ -1,12 +1,19 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Random;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.awt.Color;
 
 /**
  * A simple predator-prey simulator, based on a rectangular field
- * containing Killer Whales, Sea Lions, Dolphins, Sea Otters, Sardines, Kelp and Plankton
+ * containing the species listed in species.txt: by default Killer
+ * Whales, Sea Lions, Dolphins, Sea Otters, Sardines, Kelp and Plankton
+ * 
+ * A simulator can run headless, with no view and no delay between
+ * steps; no AWT or Swing classes are loaded in that case. Population
+ * counts are then available through getStats, and a view or other
+ * observer can still be attached with addObserver.
  * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29 (2)
@@ -18,29 +25,52 @@ public class Simulator
     private static final int DEFAULT_WIDTH = 120;
     // The default depth of the grid.
     private static final int DEFAULT_DEPTH = 80;
-    // The probability that a killer whale will be created in any given grid position.
-    private static final double KILLERWHALE_CREATION_PROBABILITY = 0.02;
-    // The probability that a sea lion will be created in any given grid position.
-    private static final double SEALION_CREATION_PROBABILITY = 0.02; 
-    // The probability that a dolphin will be created in any gi3en grid position.
-    private static final double DOLPHIN_CREATION_PROBABILITY = 0.04;
-    // The probability that a sea otter will be created in any given grid position.
-    private static final double SEAOTTER_CREATION_PROBABILITY = 0.04;
-    // The probability that a sardine will be created in any given grid position.
-    private static final double SARDINE_CREATION_PROBABILITY = 0.09;
-    // The probability that a kelp will be created in any given grid position.
-    private static final double KELP_CREATION_PROBABILITY = 0.05;
-    // The probability that a plankton will be created in any given grid position.
-    private static final double PLANKTON_CREATION_PROBABILITY = 0.05;
+    // The pause between steps when a view is shown, in milliseconds.
+    private static final int VIEW_STEP_DELAY = 60;
 
-    // List of organisms in the field.
-    private List<Organism> organisms;
+    // The organisms in the field, in the order they act.
+    private OrganismRegistry organisms;
+    // The organisms born during the current step.
+    private List<Organism> newOrganisms;
+    // The rooted creatures, which act only when their growth events
+    // come up, and may include dead ones until it is worth compacting.
+    private OrganismRegistry rooted;
+    // The rooted creatures due to act in the current step.
+    private List<Creature> due;
+    // Dead creatures kept for reuse by later births.
+    private CreaturePool pool;
+    // Whether dead creatures are kept in the pool for reuse.
+    private boolean usePooling;
+    // Whether creatures should keep their state in an EntityStore
+    // from the next reset.
+    private boolean useEntityStore;
+    // Whether creatures should draw their breeding steps in advance
+    // from the next reset.
+    private boolean useEventDraws;
+    // Whether species that do not hunt should be rooted and driven
+    // by an EventCalendar from the next reset.
+    private boolean useRootedPlants;
     // The current state of the field.
     private Field field;
+    // Where the field, and any EntityStore, keep their data.
+    private GridStorage storage;
     // The current step of the simulation.
     private int step;
-    // A graphical view of the simulation.
-    private SimulatorView view;
+    // Observers told about each step, such as a graphical view.
+    private List<SimulatorObserver> observers;
+    // Statistics on the population of the field.
+    private FieldStats stats;
+    // The pause after each step of simulate, in milliseconds.
+    private int stepDelay;
+    // The factor applied to every creation probability by populate.
+    private double density;
+    // The engine that runs each step, on the calling thread or on
+    // several threads.
+    private ParallelStepEngine engine;
+    // The log of the changes made in each step, or null.
+    private DeltaLog deltaLog;
+    // The export of the state of each organism, or null.
+    private StateExporter exporter;
     
     /**
      * Construct a simulation field with default size.
@@ -51,11 +81,39 @@ public class Simulator
     }
     
     /**
-     * Create a simulation field with the given size.
+     * Create a simulation field with the given size, shown in a view.
      * @param depth Depth of the field. Must be greater than zero.
      * @param width Width of the field. Must be greater than zero.
      */
     public Simulator(int depth, int width)
+    {
+        this(depth, width, true);
+    }
+    
+    /**
+     * Create a simulation field with the given size.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param showView Whether to show the field in a window. If false
+     *                 the simulation runs headless, without any delay
+     *                 between steps.
+     */
+    public Simulator(int depth, int width, boolean showView)
+    {
+        this(depth, width, showView, GridStorage.HEAP);
+    }
+    
+    /**
+     * Create a simulation field with the given size, keeping the data
+     * of each cell, and the state of the creatures in any EntityStore,
+     * in the given storage. Memory-mapped storage lets the field be
+     * much larger than the heap.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param showView Whether to show the field in a window.
+     * @param storage Where to keep the data of each cell and creature.
+     */
+    public Simulator(int depth, int width, boolean showView, GridStorage storage)
     {
         if(width <= 0 || depth <= 0) {
             System.out.println("The dimensions must be greater than zero.");
@@ -64,23 +122,232 @@ public class Simulator
             width = DEFAULT_WIDTH;
         }
         
-        organisms = new ArrayList<>();
-        field = new Field(depth, width);
+        organisms = new OrganismRegistry();
+        newOrganisms = new ArrayList<>();
+        rooted = new OrganismRegistry();
+        due = new ArrayList<>();
+        pool = new CreaturePool();
+        this.storage = storage;
+        field = new Field(depth, width, storage);
+        engine = new ParallelStepEngine(field, 0);
+        observers = new ArrayList<>();
+        stats = new FieldStats();
+        density = 1.0;
 
-        // Create a view of the state of each location in the field.
-        view = new SimulatorView(depth, width);
-        view.setColor(KillerWhale.class, Color.BLUE);
-        view.setColor(SeaLion.class, Color.PINK);
-        view.setColor(Dolphin.class, Color.BLACK);
-        view.setColor(SeaOtter.class, Color.GREEN);
-        view.setColor(Sardine.class, Color.GRAY);
-        view.setColor(Kelp.class, Color.ORANGE);
-        view.setColor(Kelp.class, Color.RED);
+        if(showView) {
+            addObserver(createView(depth, width));
+            stepDelay = VIEW_STEP_DELAY;
+        }
         
         // Setup a valid starting point.
         reset();
     }
     
+    /**
+     * Create a view of the state of each location in the field.
+     * @param depth Depth of the field.
+     * @param width Width of the field.
+     * @return The view.
+     */
+    private SimulatorObserver createView(int depth, int width)
+    {
+        SimulatorView view = new SimulatorView(depth, width);
+        for(Species species : Species.all()) {
+            view.setColor(species, new Color(species.getColour()));
+        }
+        return view;
+    }
+    
+    /**
+     * Attach an observer, which is told about every later step.
+     * @param observer The observer to attach.
+     */
+    public void addObserver(SimulatorObserver observer)
+    {
+        observers.add(observer);
+    }
+    
+    /**
+     * Detach an observer.
+     * @param observer The observer to detach.
+     */
+    public void removeObserver(SimulatorObserver observer)
+    {
+        observers.remove(observer);
+    }
+    
+    /**
+     * Set the pause after each step of simulate.
+     * @param millisec The pause, in milliseconds; 0 for none.
+     */
+    public void setStepDelay(int millisec)
+    {
+        stepDelay = millisec;
+    }
+    
+    /**
+     * Scale the initial population. Every creation probability is
+     * multiplied by the given factor the next time the simulation
+     * is reset.
+     * @param factor The factor; 1 gives the usual population.
+     */
+    public void setDensity(double factor)
+    {
+        density = factor;
+    }
+    
+    /**
+     * Choose whether dead creatures are kept in the pool and brought
+     * back to life for births, or left to the garbage collector. The
+     * choice takes effect from the next step. Pooling is off by
+     * default: short-lived objects are cheap for every collector, and
+     * a step is quicker without the pool, but the pool keeps garbage
+     * collections to almost none once the population has settled.
+     * @param enabled true to reuse dead creatures.
+     */
+    public void setPooling(boolean enabled)
+    {
+        usePooling = enabled;
+    }
+    
+    /**
+     * Choose whether creatures keep their age, food level and cell in
+     * an EntityStore, which ages them all in one pass per step, or in
+     * their own fields. The choice takes effect the next time the
+     * simulation is reset.
+     * @param enabled true to keep creature state in a store.
+     */
+    public void setEntityStore(boolean enabled)
+    {
+        useEntityStore = enabled;
+    }
+    
+    /**
+     * Choose whether creatures draw the steps at which they breed in
+     * advance, with one geometric draw per litter, rather than rolling
+     * for it on every step. The chance of breeding on any step is the
+     * same either way, and so are the other rules. The choice takes
+     * effect the next time the simulation is reset.
+     * @param enabled true to draw breeding steps in advance.
+     */
+    public void setEventDriven(boolean enabled)
+    {
+        useEventDraws = enabled;
+    }
+    
+    /**
+     * Choose whether species that do not hunt are rooted. This changes
+     * their rules: a rooted creature stays in its cell, never dies of
+     * overcrowding, and acts only at growth events drawn in advance
+     * and kept in an EventCalendar, so a step only does work for the
+     * rooted creatures that grow in it. Otherwise every creature acts,
+     * and drifts, on every step. The choice takes effect the next
+     * time the simulation is reset.
+     * @param enabled true to root the species that do not hunt.
+     */
+    public void setRootedPlants(boolean enabled)
+    {
+        useRootedPlants = enabled;
+    }
+    
+    /**
+     * Record every later step in a delta log: the births, deaths,
+     * kills and moves of each step, with keyframes of the whole field
+     * now and then. The log starts with a keyframe of the field as it
+     * is now. The caller closes the log when it is finished with.
+     * @param log The log, or null to stop logging.
+     * @throws IllegalArgumentException If the field is too large to log.
+     */
+    public void setDeltaLog(DeltaLog log)
+    {
+        field.setDeltaLog(log);
+        if(deltaLog != null) {
+            removeObserver(deltaLog);
+        }
+        deltaLog = log;
+        if(log != null) {
+            addObserver(log);
+            log.stepCompleted(step, field);
+        }
+    }
+    
+    /**
+     * Export the state of every organism after every later step. The
+     * caller closes the exporter when it is finished with.
+     * @param exporter The exporter, or null to stop exporting.
+     */
+    public void setExporter(StateExporter exporter)
+    {
+        this.exporter = exporter;
+    }
+    
+    /**
+     * Return statistics on the population of the field.
+     * @return The statistics for the current step.
+     */
+    public FieldStats getStats()
+    {
+        return stats;
+    }
+    
+    /**
+     * Determine whether the simulation should continue to run.
+     * @return true If there is more than one species alive.
+     */
+    public boolean isViable()
+    {
+        return stats.isViable(field);
+    }
+    
+    /**
+     * @return The current step of the simulation.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+    
+    /**
+     * @return The number of organisms the simulation is tracking.
+     */
+    public int getOrganismCount()
+    {
+        return organisms.size() + getRootedCount();
+    }
+    
+    /**
+     * @return The number of live rooted creatures.
+     */
+    private int getRootedCount()
+    {
+        if(pool.getCalendar() == null) {
+            return 0;
+        }
+        int count = 0;
+        for(Species species : Species.all()) {
+            if(!species.isPredator()) {
+                count += field.getPopulation(species);
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * @return The field being simulated.
+     */
+    public Field getField()
+    {
+        return field;
+    }
+    
+    /**
+     * @return The pool that the simulation's creatures come from.
+     */
+    public CreaturePool getPool()
+    {
+        return pool;
+    }
+    
     /**
      * Run the simulation from its current state for a reasonably long period,
      * (1000 steps).
@@ -97,11 +364,28 @@ public class Simulator
      */
     public void simulate(int numSteps)
     {
-        for(int step = 1; step <= numSteps && view.isViable(field); step++) {
+        for(int step = 1; step <= numSteps && isViable(); step++) {
             simulateOneStep();
-            delay(60);   // uncomment this to run more slowly
+            if(stepDelay > 0) {
+                delay(stepDelay);
+            }
         }
     }
+    
+    /**
+     * Choose how many threads run each step. The field is split into
+     * tiles, which with more than zero threads are worked on in
+     * parallel; see ParallelStepEngine. The outcome of a step is the
+     * same for any number of threads.
+     * @param threads The number of threads, or 0 to run each step
+     *                on the calling thread.
+     */
+    public void setParallelism(int threads)
+    {
+        engine.shutdown();
+        engine = new ParallelStepEngine(field, threads);
+    }
+    
     /**
      * Run the simulation from its current state for a single step.
      * Iterate over the whole field updating the state of each
@@ -110,26 +394,49 @@ public class Simulator
     public void simulateOneStep()
     {
         step++;
+        field.advanceEpoch();
 
-        // Provide space for newborn organisms.
-        List<Organism> newOrganisms = new ArrayList<>();  
-        // Let all organisms act.
+        // Deaths from age and hunger come first.
+        pool.getWheel().advance(step);
+        EntityStore store = pool.getStore();
+        if(store != null) {
+            store.advance();
+        }
+        EventCalendar calendar = pool.getCalendar();
+        if(calendar != null) {
+            growRooted(calendar);
+        }
+        // Let all organisms act, tile by tile, whether on this thread
+        // or several, so the outcome is the same either way.
+        engine.simulateOneStep(organisms, step);
+        // Nothing refers to the dead any more, so they can be reused.
+        organisms.compact(usePooling ? pool : null);
 
-        for(Iterator<Organism> it = organisms.iterator(); it.hasNext(); ) {
-            Organism animal = it.next();
-            animal.act(newOrganisms);
-            if(! animal.isAlive()) {
-                it.remove();
+        stepCompleted();
+    }
+    
+    /**
+     * Let the rooted creatures whose growth events fall in this step
+     * act, in order of cell.
+     * @param calendar The calendar of growth events.
+     */
+    private void growRooted(EventCalendar calendar)
+    {
+        calendar.collect(step, due);
+        for(Creature creature : due) {
+            if(creature.isAlive()) {
+                Randomizer.select(step, creature.getCell());
+                creature.act(newOrganisms);
             }
         }
-        
-          
-             
-        // Add the newly born organisms to the main lists.
-        organisms.addAll(newOrganisms);
-        
-
-        view.showStatus(step, field);
+        due.clear();
+        rooted.addAll(newOrganisms);
+        newOrganisms.clear();
+        // The dead are only removed once they are at least half of the
+        // registry, so a quiet step does no work for the rest.
+        if(rooted.size() > 2 * getRootedCount()) {
+            rooted.compact(usePooling ? pool : null);
+        }
     }
         
     /**
@@ -138,11 +445,189 @@ public class Simulator
     public void reset()
     {
         step = 0;
-        organisms.clear();
+        prepare();
         populate();
         
         // Show the starting state in the view.
-        view.showStatus(step, field);
+        stepCompleted();
+    }
+    
+    /**
+     * Forget every organism, ready for a new population, and make a
+     * new pool if the choice of store, draws or calendar has changed.
+     */
+    private void prepare()
+    {
+        organisms.clear();
+        rooted.clear();
+        EntityStore store = pool.getStore();
+        EventCalendar calendar = pool.getCalendar();
+        if(useEntityStore != (store != null) || useEventDraws != pool.isEventDriven()
+           || useRootedPlants != (calendar != null)) {
+            // Pooled creatures belong to the old store and calendar, if any.
+            store = useEntityStore ? new EntityStore(field.getDepth(), field.getWidth(), storage)
+                                   : null;
+            calendar = useRootedPlants ? new EventCalendar() : null;
+            pool = new CreaturePool(store, calendar, useEventDraws);
+        }
+        else {
+            if(store != null) {
+                store.clear();
+            }
+            if(calendar != null) {
+                calendar.clear();
+            }
+        }
+        pool.getWheel().clear();
+    }
+    
+    /**
+     * Save the state of the simulation to a checkpoint file, from
+     * which restoreCheckpoint can carry on exactly as this simulation
+     * would. The file holds, after the checkpoint header:
+     * the seed of the Randomizer, the step, the depth and width of
+     * the field, whether there is a store, whether breeding is drawn
+     * in advance and whether plants are rooted (one byte each), the
+     * number of species and their
+     * names, and then the organisms in the order they act, followed
+     * by the rooted creatures. Each group is a count and then one
+     * record per organism: species id (byte), cell, age, food level
+     * and next breeding or growth event (ints).
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void saveCheckpoint(Path file) throws IOException
+    {
+        try(Checkpoint out = Checkpoint.create(file)) {
+            out.putLong(Randomizer.getSeed());
+            out.putInt(step);
+            out.putInt(field.getDepth());
+            out.putInt(field.getWidth());
+            out.putByte((byte) (pool.getStore() != null ? 1 : 0));
+            out.putByte((byte) (pool.isEventDriven() ? 1 : 0));
+            out.putByte((byte) (pool.getCalendar() != null ? 1 : 0));
+            List<Species> table = Species.all();
+            out.putInt(table.size());
+            for(Species species : table) {
+                out.putString(species.getName());
+            }
+            saveOrganisms(out, organisms);
+            saveOrganisms(out, rooted);
+        }
+    }
+    
+    /**
+     * Write the live organisms of a registry to a checkpoint.
+     * @param out The checkpoint.
+     * @param registry The organisms.
+     * @throws IOException If they cannot be written.
+     */
+    private void saveOrganisms(Checkpoint out, OrganismRegistry registry) throws IOException
+    {
+        int live = 0;
+        for(int i = 0; i < registry.size(); i++) {
+            if(registry.get(i).isAlive()) {
+                live++;
+            }
+        }
+        out.putInt(live);
+        for(int i = 0; i < registry.size(); i++) {
+            Organism organism = registry.get(i);
+            if(organism.isAlive()) {
+                Creature creature = (Creature) organism;
+                out.putByte(creature.getSpecies().getId());
+                out.putInt(creature.getCell());
+                out.putInt(creature.getAge());
+                out.putInt(creature.getFoodLevel());
+                out.putInt(creature.getNextEvent());
+            }
+        }
+    }
+    
+    /**
+     * Replace the state of the simulation with one saved by
+     * saveCheckpoint. The simulation then carries on exactly as the
+     * saved one would have, and the seed of the Randomizer, the step
+     * and the choice of store, draws and calendar are all taken from the
+     * file. If the file cannot be read, the simulation should be
+     * reset before it is used again.
+     * @param file The file to read.
+     * @throws IOException If the file cannot be read, or was saved
+     *                     from a field of another size or with
+     *                     another species table.
+     */
+    public void restoreCheckpoint(Path file) throws IOException
+    {
+        try(Checkpoint in = Checkpoint.open(file)) {
+            long seed = in.getLong();
+            int savedStep = in.getInt();
+            int depth = in.getInt();
+            int width = in.getInt();
+            if(depth != field.getDepth() || width != field.getWidth()) {
+                throw new IOException("The checkpoint is of a " + depth + "x" + width
+                                      + " field, not " + field.getDepth() + "x" + field.getWidth());
+            }
+            useEntityStore = in.getByte() != 0;
+            useEventDraws = in.getByte() != 0;
+            useRootedPlants = in.getByte() != 0;
+            List<Species> table = Species.all();
+            int count = in.getInt();
+            boolean sameTable = count == table.size();
+            for(int i = 0; i < count; i++) {
+                String name = in.getString();
+                sameTable = sameTable && name.equals(table.get(i).getName());
+            }
+            if(!sameTable) {
+                throw new IOException("The checkpoint was saved with another species table");
+            }
+
+            Randomizer.setSeed(seed);
+            step = savedStep;
+            prepare();
+            // The wheel is empty, so this only sets its step.
+            pool.getWheel().advance(step);
+            field.clear();
+            restoreOrganisms(in, organisms);
+            restoreOrganisms(in, rooted);
+        }
+        stepCompleted();
+    }
+    
+    /**
+     * Read organisms from a checkpoint into the field and a registry.
+     * @param in The checkpoint.
+     * @param registry The registry to add them to.
+     * @throws IOException If they cannot be read.
+     */
+    private void restoreOrganisms(Checkpoint in, OrganismRegistry registry) throws IOException
+    {
+        int count = in.getInt();
+        int cells = field.getDepth() * field.getWidth();
+        for(int i = 0; i < count; i++) {
+            byte id = in.getByte();
+            int cell = in.getInt();
+            int age = in.getInt();
+            int foodLevel = in.getInt();
+            int nextEvent = in.getInt();
+            if(id <= Field.EMPTY || id > Species.count() || cell < 0 || cell >= cells) {
+                throw new IOException("Bad organism in checkpoint: species " + id + ", cell " + cell);
+            }
+            registry.add(pool.restore(Species.fromId(id), field, cell, age, foodLevel, nextEvent));
+        }
+    }
+    
+    /**
+     * Tell the observers that the field has changed, and export the
+     * state of the organisms if there is an exporter.
+     */
+    private void stepCompleted()
+    {
+        if(exporter != null) {
+            exporter.export(step, field, organisms, rooted);
+        }
+        for(SimulatorObserver observer : observers) {
+            observer.stepCompleted(step, field);
+        }
     }
     
     /**
@@ -150,44 +635,24 @@ public class Simulator
      */
     private void populate()
     {
-        Random rand = Randomizer.getRandom();
+        // One stream for the whole of the initial population.
+        Random rand = Randomizer.select(step, -1);
+        List<Species> table = Species.all();
         field.clear();
         for(int row = 0; row < field.getDepth(); row++) {
             for(int col = 0; col < field.getWidth(); col++) {
-                if(rand.nextDouble() <= KILLERWHALE_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    KillerWhale killerWhale = new KillerWhale(true, field, location);
-                    organisms.add(killerWhale);
-                }
-                else if(rand.nextDouble() <= SEALION_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    SeaLion seaLion = new SeaLion(true, field, location);
-                    organisms.add(seaLion);
-                }
-                else if(rand.nextDouble() <= DOLPHIN_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Dolphin dolphin = new Dolphin(true, field, location);
-                    organisms.add(dolphin);
-                }
-                else if(rand.nextDouble() <= SEAOTTER_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    SeaOtter seaOtter = new SeaOtter(true, field, location);
-                    organisms.add(seaOtter);
-                }
-                else if(rand.nextDouble() <= SARDINE_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Sardine sardine = new Sardine(true, field, location);
-                    organisms.add(sardine);
-                }
-                else if(rand.nextDouble() <= KELP_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Kelp kelp = new Kelp(true, field, location);
-                    organisms.add(kelp);
-                }
-                else if(rand.nextDouble() <= PLANKTON_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Plankton plankton = new Plankton(true, field, location);
-                    organisms.add(plankton);
+                // The species are tried in the order of the table.
+                for(Species species : table) {
+                    if(rand.nextDouble() <= species.getCreationProbability() * density) {
+                        Creature creature = pool.obtain(species, true, field, field.cellOf(row, col));
+                        if(creature.isRooted()) {
+                            rooted.add(creature);
+                        }
+                        else {
+                            organisms.add(creature);
+                        }
+                        break;
+                    }
                 }
                 // else leave the location empty.
             }
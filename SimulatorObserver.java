@@ -0,0 +1,17 @@
+/**
+ * Something that wants to be told about the progress of a
+ * simulation, such as a view of the field. Observers are
+ * attached with Simulator.addObserver.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public interface SimulatorObserver
+{
+    /**
+     * Called after the simulation is reset and after each step.
+     * @param step Which iteration step it is.
+     * @param field The field whose status has changed.
+     */
+    void stepCompleted(int step, Field field);
+}
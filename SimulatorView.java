@@ -1,8 +1,10 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import javax.swing.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A graphical view of the simulation grid.
@@ -11,26 +13,46 @@ import java.util.Map;
  * Colors for each type of species can be defined using the
  * setColor method.
  * 
+ * The field is drawn one pixel per cell into an image, straight
+ * from the species ids stored in the field, and the image is
+ * scaled to the window when it is painted. Only the tiles that the
+ * snapshot reports as changed are drawn again.
+ * 
+ * Drawing happens on the Swing event thread at the view's own frame
+ * rate, not on the simulation thread. After each step the simulation
+ * only copies the field into a snapshot, and only when the view has
+ * finished with the previous one; otherwise the step is skipped for
+ * display. The simulation is never held up by painting.
+ * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
-public class SimulatorView extends JFrame
+public class SimulatorView extends JFrame implements SimulatorObserver
 {
     // Colors used for empty locations.
     private static final Color EMPTY_COLOR = Color.white;
 
     // Color used for objects that have no defined color.
     private static final Color UNKNOWN_COLOR = Color.cyan;
+    
+    // The time between frames, in milliseconds.
+    private static final int FRAME_INTERVAL = 33;
 
     private final String STEP_PREFIX = "Step: ";
     private final String POPULATION_PREFIX = "Population: ";
     private JLabel stepLabel, population, infoLabel;
     private FieldView fieldView;
     
-    // A map for storing colors for participants in the simulation
-    private Map<Class, Color> colors;
+    // The RGB value to draw for each species id. Ids are bytes, and
+    // are used unsigned so that Field.OTHER has an entry too.
+    private int[] palette;
     // A statistics object computing and storing simulation information
     private FieldStats stats;
+    // A snapshot waiting to be drawn, or null if there is none.
+    private final AtomicReference<FieldSnapshot> pending;
+    // The snapshot the simulation may fill next, or null while
+    // the view is still using it.
+    private final AtomicReference<FieldSnapshot> spare;
 
     /**
      * Create a view of the given width and height.
@@ -40,7 +62,11 @@ public class SimulatorView extends JFrame
     public SimulatorView(int height, int width)
     {
         stats = new FieldStats();
-        colors = new LinkedHashMap<>();
+        pending = new AtomicReference<>();
+        spare = new AtomicReference<>(new FieldSnapshot(height, width));
+        palette = new int[256];
+        Arrays.fill(palette, UNKNOWN_COLOR.getRGB());
+        palette[Field.EMPTY] = EMPTY_COLOR.getRGB();
 
         setTitle("Sea World Simulation");
         stepLabel = new JLabel(STEP_PREFIX, JLabel.CENTER);
@@ -61,16 +87,18 @@ public class SimulatorView extends JFrame
         contents.add(population, BorderLayout.SOUTH);
         pack();
         setVisible(true);
+        
+        new Timer(FRAME_INTERVAL, e -> drawPendingSnapshot()).start();
     }
     
     /**
-     * Define a color to be used for a given class of organisms.
-     * @param organismClass The organism's Class object.
-     * @param color The color to be used for the given class.
+     * Define a color to be used for a given species.
+     * @param species The species.
+     * @param color The color to be used for the given species.
      */
-    public void setColor(Class organismClass, Color color)
+    public void setColor(Species species, Color color)
     {
-        colors.put(organismClass, color);
+        palette[species.getId() & 0xFF] = color.getRGB();
     }
 
     /**
@@ -82,54 +110,54 @@ public class SimulatorView extends JFrame
     }
 
     /**
-     * @return The color to be used for a given class of organism.
+     * Show the current status of the field. This may be called from
+     * any thread; the field is copied and drawn later on the event
+     * thread. If the previous status has not been drawn yet, this
+     * status is not shown.
+     * @param step Which iteration step it is.
+     * @param field The field whose status is to be displayed.
      */
-    private Color getColor(Class organismClass)
+    public void showStatus(int step, Field field)
     {
-        Color col = colors.get(organismClass);
-        if(col == null) {
-            // no color defined for this class
-            return UNKNOWN_COLOR;
-        }
-        else {
-            return col;
+        FieldSnapshot snapshot = spare.getAndSet(null);
+        if(snapshot != null) {
+            snapshot.capture(step, field);
+            pending.set(snapshot);
         }
     }
-
+    
     /**
-     * Show the current status of the field.
-     * @param step Which iteration step it is.
-     * @param field The field whose status is to be displayed.
+     * Draw the latest snapshot, if there is a new one, and hand it
+     * back to the simulation. Runs on the event thread.
      */
-    public void showStatus(int step, Field field)
+    private void drawPendingSnapshot()
     {
+        FieldSnapshot snapshot = pending.getAndSet(null);
+        if(snapshot == null) {
+            return;
+        }
         if(!isVisible()) {
             setVisible(true);
         }
             
-        stepLabel.setText(STEP_PREFIX + step);
-        stats.reset();
+        stepLabel.setText(STEP_PREFIX + snapshot.getStep());
         
-        fieldView.preparePaint();
-
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object actor = field.getObjectAt(row, col);
-                if(actor != null) {
-                    stats.incrementCount(actor.getClass());
-                    fieldView.drawMark(col, row, getColor(actor.getClass()));
-                }
-                else {
-                    fieldView.drawMark(col, row, EMPTY_COLOR);
-                }
-            }
-        }
-        stats.countFinished();
-
-        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
+        fieldView.drawField(snapshot, palette);
+        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(snapshot));
+        spare.set(snapshot);
         fieldView.repaint();
     }
 
+    /**
+     * Show the field after a step of the simulation.
+     * @param step Which iteration step it is.
+     * @param field The field whose status is to be displayed.
+     */
+    public void stepCompleted(int step, Field field)
+    {
+        showStatus(step, field);
+    }
+
     /**
      * Determine whether the simulation should continue to run.
      * @return true If there is more than one species alive.
@@ -152,10 +180,10 @@ public class SimulatorView extends JFrame
         private final int GRID_VIEW_SCALING_FACTOR = 6;
 
         private int gridWidth, gridHeight;
-        private int xScale, yScale;
-        Dimension size;
-        private Graphics g;
-        private Image fieldImage;
+        // The field, one pixel per cell.
+        private BufferedImage fieldImage;
+        // The pixels of fieldImage, indexed by row * width + col.
+        private int[] pixels;
 
         /**
          * Create a new FieldView component.
@@ -164,7 +192,8 @@ public class SimulatorView extends JFrame
         {
             gridHeight = height;
             gridWidth = width;
-            size = new Dimension(0, 0);
+            fieldImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) fieldImage.getRaster().getDataBuffer()).getData();
         }
 
         /**
@@ -175,54 +204,39 @@ public class SimulatorView extends JFrame
             return new Dimension(gridWidth * GRID_VIEW_SCALING_FACTOR,
                                  gridHeight * GRID_VIEW_SCALING_FACTOR);
         }
-
+        
         /**
-         * Prepare for a new round of painting. Since the component
-         * may be resized, compute the scaling factor again.
+         * Write the color of every cell of a snapshot's changed tiles
+         * into the image. Every capture of the snapshot is drawn, so
+         * the other tiles already show what they hold.
+         * @param snapshot The snapshot of the field to draw.
+         * @param palette The RGB value for each species id.
          */
-        public void preparePaint()
+        public void drawField(FieldSnapshot snapshot, int[] palette)
         {
-            if(! size.equals(getSize())) {  // if the size has changed...
-                size = getSize();
-                fieldImage = fieldView.createImage(size.width, size.height);
-                g = fieldImage.getGraphics();
-
-                xScale = size.width / gridWidth;
-                if(xScale < 1) {
-                    xScale = GRID_VIEW_SCALING_FACTOR;
-                }
-                yScale = size.height / gridHeight;
-                if(yScale < 1) {
-                    yScale = GRID_VIEW_SCALING_FACTOR;
+            int tileCols = (gridWidth + Field.TILE_SIZE - 1) / Field.TILE_SIZE;
+            for(int i = 0; i < snapshot.getChangedTileCount(); i++) {
+                int tile = snapshot.getChangedTile(i);
+                int top = (tile / tileCols) * Field.TILE_SIZE;
+                int left = (tile % tileCols) * Field.TILE_SIZE;
+                int bottom = Math.min(top + Field.TILE_SIZE, gridHeight);
+                int right = Math.min(left + Field.TILE_SIZE, gridWidth);
+                for(int row = top; row < bottom; row++) {
+                    for(int cell = row * gridWidth + left; cell < row * gridWidth + right; cell++) {
+                        pixels[cell] = palette[snapshot.getSpeciesAt(cell) & 0xFF];
+                    }
                 }
             }
         }
-        
-        /**
-         * Paint on grid location on this field in a given color.
-         */
-        public void drawMark(int x, int y, Color color)
-        {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale-1, yScale-1);
-        }
 
         /**
-         * The field view component needs to be redisplayed. Copy the
-         * internal image to screen.
+         * The field view component needs to be redisplayed. Scale
+         * the image to the component in a single drawImage.
          */
         public void paintComponent(Graphics g)
         {
-            if(fieldImage != null) {
-                Dimension currentSize = getSize();
-                if(size.equals(currentSize)) {
-                    g.drawImage(fieldImage, 0, 0, null);
-                }
-                else {
-                    // Rescale the previous image.
-                    g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
-                }
-            }
+            Dimension currentSize = getSize();
+            g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
         }
     }
 }
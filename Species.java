@@ -0,0 +1,320 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A kind of organism that lives in the simulated ocean, and the
+ * characteristics shared by all its members: how long they live,
+ * how they breed and what they eat.
+ *
+ * The species are not written into the program. They are loaded at
+ * startup from the table in species.txt, so adding a species needs
+ * a new line in the table but no new classes. Every organism is a
+ * Creature, which behaves as its species describes.
+ *
+ * Each species has a small numeric id that the field stores per
+ * cell, so that the contents of a location can be identified
+ * without following an object reference. What a species eats is
+ * compiled into a diet: a bit mask with one bit per species id, so
+ * that testing whether a neighbouring cell holds prey is a single
+ * bit test on the id stored in the field.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public final class Species
+{
+    // The file the species are loaded from, found on the class path.
+    private static final String TABLE = "species.txt";
+    // The largest number of species. Every id needs a bit in a diet,
+    // and the top bit is left clear because Field.OTHER (-1) shifts
+    // onto it, so that neither EMPTY nor OTHER is ever edible.
+    private static final int MAX_SPECIES = Long.SIZE - 2;
+    // All species, in id order.
+    private static final Species[] ALL = load();
+    // All species, in id order, as a list that cannot be changed.
+    private static final List<Species> LIST = Collections.unmodifiableList(Arrays.asList(ALL));
+
+    // The id stored in the field for this species.
+    private final byte id;
+    // A readable name for the species.
+    private final String name;
+    // The age at which a member can start to breed.
+    private final int breedingAge;
+    // The age to which a member can live.
+    private final int maxAge;
+    // The likelihood of a member breeding in a step.
+    private final double breedingProbability;
+    // The maximum number of births.
+    private final int maxLitterSize;
+    // The number of steps a member can go after eating before it
+    // has to eat again, or 0 if it never gets hungry.
+    private final int foodValue;
+    // The probability that a member is created in any given grid
+    // position when the field is populated.
+    private final double creationProbability;
+    // The colour of the species in a view, as an RGB value.
+    private final int colour;
+    // The names of the species this species eats.
+    private final String[] preyNames;
+    // The species this species eats, as a bit mask: bit n is set if
+    // it eats the species with id n.
+    private long diet;
+
+    /**
+     * Define a species from one line of the table.
+     * @param id The id of the species.
+     * @param columns The columns of its line in the table.
+     */
+    private Species(byte id, String[] columns)
+    {
+        this.id = id;
+        name = columns[0];
+        breedingAge = Integer.parseInt(columns[1]);
+        maxAge = Integer.parseInt(columns[2]);
+        breedingProbability = Double.parseDouble(columns[3]);
+        maxLitterSize = Integer.parseInt(columns[4]);
+        foodValue = Integer.parseInt(columns[5]);
+        creationProbability = Double.parseDouble(columns[6]);
+        colour = Integer.parseInt(columns[7].substring(1), 16);
+        preyNames = columns.length > 8 ? columns[8].split(";") : new String[0];
+    }
+
+    /**
+     * Return the id stored in the field for this species.
+     * Ids start at one; zero marks an empty cell.
+     * @return The species id.
+     */
+    public byte getId()
+    {
+        return id;
+    }
+
+    /**
+     * @return The readable name of the species.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return The age at which a member can start to breed.
+     */
+    public int getBreedingAge()
+    {
+        return breedingAge;
+    }
+
+    /**
+     * @return The age to which a member can live.
+     */
+    public int getMaxAge()
+    {
+        return maxAge;
+    }
+
+    /**
+     * @return The likelihood of a member breeding in a step.
+     */
+    public double getBreedingProbability()
+    {
+        return breedingProbability;
+    }
+
+    /**
+     * @return The maximum number of births.
+     */
+    public int getMaxLitterSize()
+    {
+        return maxLitterSize;
+    }
+
+    /**
+     * Return the food value of a meal. In effect, this is the number
+     * of steps a member can go before it has to eat again.
+     * @return The food value, or 0 if members never get hungry.
+     */
+    public int getFoodValue()
+    {
+        return foodValue;
+    }
+
+    /**
+     * @return The probability that a member is created in any given
+     *         grid position when the field is populated.
+     */
+    public double getCreationProbability()
+    {
+        return creationProbability;
+    }
+
+    /**
+     * @return The colour of the species in a view, as an RGB value.
+     */
+    public int getColour()
+    {
+        return colour;
+    }
+
+    /**
+     * @return true if members of this species eat other organisms.
+     */
+    public boolean isPredator()
+    {
+        return preyNames.length > 0;
+    }
+
+    /**
+     * Tell whether this species eats another.
+     * @param prey The other species.
+     * @return true if members of this species eat members of the other.
+     */
+    public boolean eats(Species prey)
+    {
+        return isPrey(diet, prey.id);
+    }
+
+    /**
+     * Return the diet of this species: a bit mask in which bit n is
+     * set if the species eats the species with id n.
+     * @return The diet of this species.
+     */
+    public long getDiet()
+    {
+        return diet;
+    }
+
+    /**
+     * Tell whether a diet includes the occupant of a cell.
+     * @param diet A diet, as returned by getDiet.
+     * @param id The species id stored in the field for the cell,
+     *           which may be Field.EMPTY or Field.OTHER.
+     * @return true if the cell holds a species in the diet.
+     */
+    public static boolean isPrey(long diet, byte id)
+    {
+        return (diet & (1L << id)) != 0;
+    }
+
+    /**
+     * @return The name of the species.
+     */
+    public String toString()
+    {
+        return name;
+    }
+
+    /**
+     * @return The number of species.
+     */
+    public static int count()
+    {
+        return ALL.length;
+    }
+
+    /**
+     * @return All species, in id order.
+     */
+    public static List<Species> all()
+    {
+        return LIST;
+    }
+
+    /**
+     * Return the species with the given id.
+     * @param id A species id, as returned by getId.
+     * @return The species with that id.
+     */
+    public static Species fromId(byte id)
+    {
+        return ALL[id - 1];
+    }
+
+    /**
+     * Return the species with the given name.
+     * @param name The name of a species in the table.
+     * @return The species with that name.
+     * @throws IllegalArgumentException If there is no such species.
+     */
+    public static Species named(String name)
+    {
+        for(Species species : ALL) {
+            if(species.name.equals(name)) {
+                return species;
+            }
+        }
+        throw new IllegalArgumentException("Unknown species: " + name);
+    }
+
+    /**
+     * Load the species table.
+     * @return The species, in the order of the table.
+     * @throws IllegalStateException If the table is missing or malformed.
+     */
+    private static Species[] load()
+    {
+        List<Species> species = new ArrayList<>();
+        InputStream in = Species.class.getClassLoader().getResourceAsStream(TABLE);
+        if(in == null) {
+            throw new IllegalStateException("The species table " + TABLE
+                                            + " is not on the class path.");
+        }
+        try(BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            String line;
+            while((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if(line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\\s*,\\s*");
+                if(columns.length < 8 || columns.length > 9) {
+                    throw new IllegalStateException(TABLE + " line " + lineNumber
+                                                    + ": expected 8 or 9 columns.");
+                }
+                if(species.size() == MAX_SPECIES) {
+                    throw new IllegalStateException(TABLE + " line " + lineNumber
+                                                    + ": too many species.");
+                }
+                try {
+                    species.add(new Species((byte) (species.size() + 1), columns));
+                }
+                catch(NumberFormatException e) {
+                    throw new IllegalStateException(TABLE + " line " + lineNumber
+                                                    + ": " + e.getMessage());
+                }
+            }
+        }
+        catch(IOException e) {
+            throw new IllegalStateException("Cannot read " + TABLE, e);
+        }
+        Species[] table = species.toArray(new Species[0]);
+
+        // Compile the diet of each species, now that all are known.
+        for(Species predator : table) {
+            for(String preyName : predator.preyNames) {
+                Species prey = null;
+                for(Species candidate : table) {
+                    if(candidate.name.equals(preyName.trim())) {
+                        prey = candidate;
+                    }
+                }
+                if(prey == null) {
+                    throw new IllegalStateException(TABLE + ": " + predator.name
+                                                    + " eats unknown species " + preyName);
+                }
+                predator.diet |= 1L << prey.id;
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,187 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads an export written by StateExporter, one step at a time.
+ * Only the columns asked for are read and decoded; the others are
+ * skipped over using the lengths at the start of each step, so
+ * scanning one column, such as every age, reads little more than
+ * that column.
+ *
+ *     while(reader.next()) {
+ *         int[] ages = reader.readColumn(StateExporter.AGE);
+ *         ...
+ *     }
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class StateExportReader implements Closeable
+{
+    // The length of the header of each step: step, count and lengths.
+    private static final int HEADER_BYTES = (2 + StateExporter.COLUMNS) * Integer.BYTES;
+
+    // The export file.
+    private final FileChannel channel;
+    // The header of the current step.
+    private final ByteBuffer header;
+    // The offset of each column of the current step.
+    private final long[] offsets;
+    // The compressed length of each column of the current step.
+    private final int[] lengths;
+    // The offset of the next step.
+    private long next;
+    // The current step.
+    private int step;
+    // The number of organisms in the current step.
+    private int count;
+    // Decompresses the columns.
+    private final Inflater inflater;
+
+    /**
+     * Open an export.
+     * @param file The export file.
+     * @throws IOException If it cannot be read, or is not an export.
+     */
+    public StateExportReader(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        header = ByteBuffer.allocate(HEADER_BYTES);
+        offsets = new long[StateExporter.COLUMNS];
+        lengths = new int[StateExporter.COLUMNS];
+        inflater = new Inflater();
+        ByteBuffer start = ByteBuffer.allocate(2 * Integer.BYTES);
+        try {
+            readFully(start, 0);
+            if(start.getInt() != StateExporter.MAGIC || start.getInt() != StateExporter.COLUMNS) {
+                throw new IOException(file + " is not a state export");
+            }
+        }
+        catch(IOException e) {
+            close();
+            throw e;
+        }
+        next = start.capacity();
+    }
+
+    /**
+     * Move on to the next step in the export.
+     * @return false if there are no more steps.
+     * @throws IOException If the export cannot be read.
+     */
+    public boolean next() throws IOException
+    {
+        if(next >= channel.size()) {
+            return false;
+        }
+        header.clear();
+        readFully(header, next);
+        step = header.getInt();
+        count = header.getInt();
+        long offset = next + HEADER_BYTES;
+        for(int column = 0; column < StateExporter.COLUMNS; column++) {
+            lengths[column] = header.getInt();
+            offsets[column] = offset;
+            offset += lengths[column];
+        }
+        next = offset;
+        return true;
+    }
+
+    /**
+     * @return The current step.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The number of organisms exported in the current step.
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Read one column of the current step.
+     * @param column The column, such as StateExporter.AGE.
+     * @return The value of the column for each organism.
+     * @throws IOException If the column cannot be read or decoded.
+     */
+    public int[] readColumn(int column) throws IOException
+    {
+        ByteBuffer packed = ByteBuffer.allocate(lengths[column]);
+        readFully(packed, offsets[column]);
+        int width = column == StateExporter.SPECIES ? 1 : Integer.BYTES;
+        byte[] raw = new byte[count * width];
+        inflater.reset();
+        inflater.setInput(packed.array());
+        try {
+            int done = 0;
+            while(done < raw.length && !inflater.finished()) {
+                done += inflater.inflate(raw, done, raw.length - done);
+                // A column cut short or wanting a dictionary would
+                // otherwise inflate nothing for ever.
+                if(inflater.needsDictionary()) {
+                    throw new IOException("Column " + column + " of step " + step + " is corrupt");
+                }
+                if(inflater.needsInput()) {
+                    break;
+                }
+            }
+            if(done < raw.length) {
+                throw new EOFException("Column " + column + " of step " + step + " is too short");
+            }
+        }
+        catch(DataFormatException e) {
+            throw new IOException("Column " + column + " of step " + step + " is corrupt", e);
+        }
+        int[] values = new int[count];
+        if(width == 1) {
+            for(int i = 0; i < count; i++) {
+                values[i] = raw[i];
+            }
+        }
+        else {
+            ByteBuffer.wrap(raw).asIntBuffer().get(values);
+        }
+        return values;
+    }
+
+    /**
+     * Close the export.
+     * @throws IOException If it cannot be closed.
+     */
+    public void close() throws IOException
+    {
+        inflater.end();
+        channel.close();
+    }
+
+    /**
+     * Fill a buffer from the export, starting at the given offset,
+     * and flip it ready to be read.
+     * @param into The buffer.
+     * @param offset The offset in the export.
+     * @throws IOException If the export ends before the buffer is full.
+     */
+    private void readFully(ByteBuffer into, long offset) throws IOException
+    {
+        while(into.hasRemaining()) {
+            int read = channel.read(into, offset + into.position());
+            if(read < 0) {
+                throw new EOFException("The export ends too soon");
+            }
+        }
+        into.flip();
+    }
+}
@@ -0,0 +1,345 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * Exports the state of every organism at the end of each step, for
+ * analysis after the run: its species, age, food level, row and
+ * column. Attach it with Simulator.setExporter.
+ *
+ * The simulation thread only copies the state into the columns of a
+ * chunk, one chunk per step, and hands the chunk to a background
+ * thread over a queue of bounded size. The background thread
+ * compresses each column separately and writes it, so a reader can
+ * find and decode one column of a step without decoding the others.
+ * If the writer falls behind and the queue is full, the
+ * OverflowPolicy decides what happens. The steps dropped are counted
+ * by getDroppedSteps.
+ *
+ * The file starts with MAGIC and the number of columns. Each step is
+ * then written as the step, the number of organisms, the compressed
+ * length of each column, and the columns, each compressed with
+ * Deflater. The species column holds one byte per organism, the
+ * species id, and the other columns four bytes per organism.
+ * StateExportReader reads the file.
+ *
+ * @author agent
+ * @version 2026.10.16
+ */
+public class StateExporter implements Closeable
+{
+    // The first four bytes of an export: "SWEX".
+    public static final int MAGIC = 0x53574558;
+    // The columns, in the order they are written.
+    public static final int SPECIES = 0;
+    public static final int AGE = 1;
+    public static final int FOOD_LEVEL = 2;
+    public static final int ROW = 3;
+    public static final int COL = 4;
+    // The number of columns.
+    public static final int COLUMNS = 5;
+
+    /**
+     * What to do with a step when the queue of steps waiting to be
+     * written is full.
+     */
+    public enum OverflowPolicy
+    {
+        // Wait for room, so nothing is lost but the simulation may stall.
+        BLOCK,
+        // Drop the step being exported.
+        DROP_NEWEST,
+        // Drop the oldest step still queued to make room.
+        DROP_OLDEST
+    }
+
+    // The chunk that tells the writer thread to finish.
+    private static final Chunk END = new Chunk();
+
+    // The export file.
+    private final DataOutputStream out;
+    // Chunks waiting to be written.
+    private final BlockingQueue<Chunk> queue;
+    // Chunks that have been written, for reuse.
+    private final BlockingQueue<Chunk> spare;
+    // What to do when the queue is full.
+    private final OverflowPolicy policy;
+    // The thread that compresses and writes the chunks.
+    private final Thread writer;
+    // The number of steps dropped because the queue was full.
+    private final AtomicLong dropped;
+    // The first error met by the writer thread, or null.
+    private volatile IOException failure;
+
+    /**
+     * Create an export, replacing any file of the same name, and
+     * start its writer thread.
+     * @param file The file to write to.
+     * @param queueSize The number of steps that may wait to be written.
+     * @param policy What to do when the queue is full.
+     * @throws IOException If the file cannot be created.
+     */
+    public StateExporter(Path file, int queueSize, OverflowPolicy policy) throws IOException
+    {
+        if(queueSize < 1) {
+            throw new IllegalArgumentException("The queue size must be positive: " + queueSize);
+        }
+        if(policy == null) {
+            throw new IllegalArgumentException("No overflow policy given");
+        }
+        this.policy = policy;
+        queue = new ArrayBlockingQueue<>(queueSize);
+        // One chunk may be being filled and one written as well.
+        spare = new ArrayBlockingQueue<>(queueSize + 2);
+        dropped = new AtomicLong();
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(COLUMNS);
+        writer = new Thread(this::writeChunks, "state-exporter");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Export the state of the live organisms at the end of a step.
+     * Called on the simulation thread.
+     * @param step The step that has been completed.
+     * @param field The field.
+     * @param registries The organisms to export.
+     * @throws UncheckedIOException If the writer thread has failed.
+     */
+    public void export(int step, Field field, OrganismRegistry... registries)
+    {
+        if(failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        if(policy == OverflowPolicy.DROP_NEWEST && queue.remainingCapacity() == 0) {
+            // Save the work of filling a chunk that would be dropped.
+            dropped.incrementAndGet();
+            return;
+        }
+        Chunk chunk = spare.poll();
+        if(chunk == null) {
+            chunk = new Chunk();
+        }
+        chunk.fill(step, field.getWidth(), registries);
+        if(policy == OverflowPolicy.BLOCK) {
+            try {
+                queue.put(chunk);
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.incrementAndGet();
+            }
+        }
+        else if(policy == OverflowPolicy.DROP_NEWEST) {
+            if(!queue.offer(chunk)) {
+                dropped.incrementAndGet();
+                spare.offer(chunk);
+            }
+        }
+        else {
+            while(!queue.offer(chunk)) {
+                Chunk oldest = queue.poll();
+                if(oldest != null) {
+                    dropped.incrementAndGet();
+                    spare.offer(oldest);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of steps dropped because the queue was full.
+     */
+    public long getDroppedSteps()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * Write out the steps still queued, stop the writer thread and
+     * close the file.
+     * @throws IOException If the export could not be written.
+     */
+    public void close() throws IOException
+    {
+        try {
+            if(writer.isAlive()) {
+                queue.put(END);
+                writer.join();
+            }
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the export");
+        }
+        finally {
+            out.close();
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Write the chunks from the queue until told to finish. After an
+     * error the chunks are only taken from the queue, so that the
+     * simulation is never left waiting for room.
+     */
+    private void writeChunks()
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] raw = new byte[0];
+        byte[][] packed = new byte[COLUMNS][0];
+        int[] lengths = new int[COLUMNS];
+        try {
+            while(true) {
+                Chunk chunk = queue.take();
+                if(chunk == END) {
+                    break;
+                }
+                if(failure == null) {
+                    try {
+                        int bytes = chunk.count * Integer.BYTES;
+                        if(raw.length < bytes) {
+                            raw = new byte[bytes];
+                        }
+                        for(int column = 0; column < COLUMNS; column++) {
+                            int length = chunk.encode(column, raw);
+                            packed[column] = compress(deflater, raw, length, packed[column]);
+                            lengths[column] = deflater.getTotalOut();
+                        }
+                        out.writeInt(chunk.step);
+                        out.writeInt(chunk.count);
+                        for(int column = 0; column < COLUMNS; column++) {
+                            out.writeInt(lengths[column]);
+                        }
+                        for(int column = 0; column < COLUMNS; column++) {
+                            out.write(packed[column], 0, lengths[column]);
+                        }
+                    }
+                    catch(IOException e) {
+                        failure = e;
+                    }
+                }
+                spare.offer(chunk);
+            }
+            out.flush();
+        }
+        catch(InterruptedException e) {
+            failure = new InterruptedIOException("The export was interrupted");
+        }
+        catch(IOException e) {
+            if(failure == null) {
+                failure = e;
+            }
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compress some bytes. The compressed length is left in
+     * deflater.getTotalOut().
+     * @param deflater The deflater to use.
+     * @param raw The bytes.
+     * @param length The number of bytes.
+     * @param into An array to compress into, if it is large enough.
+     * @return The array holding the compressed bytes.
+     */
+    private static byte[] compress(Deflater deflater, byte[] raw, int length, byte[] into)
+    {
+        deflater.reset();
+        deflater.setInput(raw, 0, length);
+        deflater.finish();
+        if(into.length < 64) {
+            into = new byte[length / 2 + 64];
+        }
+        while(!deflater.finished()) {
+            if(deflater.getTotalOut() == into.length) {
+                into = Arrays.copyOf(into, into.length * 2);
+            }
+            deflater.deflate(into, deflater.getTotalOut(), into.length - deflater.getTotalOut());
+        }
+        return into;
+    }
+
+    /**
+     * The state of the organisms at the end of one step, a column
+     * for each field of their state.
+     */
+    private static class Chunk
+    {
+        // The step.
+        private int step;
+        // The number of organisms.
+        private int count;
+        // The columns, indexed by column and then by organism.
+        private int[][] columns = new int[COLUMNS][0];
+
+        /**
+         * Copy the state of the live organisms.
+         * @param step The step.
+         * @param width The width of the field.
+         * @param registries The organisms.
+         */
+        private void fill(int step, int width, OrganismRegistry[] registries)
+        {
+            this.step = step;
+            count = 0;
+            for(OrganismRegistry registry : registries) {
+                int size = registry.size();
+                if(columns[0].length < count + size) {
+                    for(int column = 0; column < COLUMNS; column++) {
+                        columns[column] = Arrays.copyOf(columns[column], (count + size) * 3 / 2);
+                    }
+                }
+                for(int i = 0; i < size; i++) {
+                    Organism organism = registry.get(i);
+                    if(organism.isAlive()) {
+                        Creature creature = (Creature) organism;
+                        int cell = creature.getCell();
+                        columns[SPECIES][count] = creature.getSpecies().getId();
+                        columns[AGE][count] = creature.getAge();
+                        columns[FOOD_LEVEL][count] = creature.getFoodLevel();
+                        columns[ROW][count] = cell / width;
+                        columns[COL][count] = cell % width;
+                        count++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Encode one column as bytes.
+         * @param column The column.
+         * @param into An array large enough for four bytes per organism.
+         * @return The number of bytes used.
+         */
+        private int encode(int column, byte[] into)
+        {
+            int[] values = columns[column];
+            if(column == SPECIES) {
+                for(int i = 0; i < count; i++) {
+                    into[i] = (byte) values[i];
+                }
+                return count;
+            }
+            ByteBuffer.wrap(into).asIntBuffer().put(values, 0, count);
+            return count * Integer.BYTES;
+        }
+    }
+}